@@ -38,7 +38,6 @@
 -dontwarn afu.org.checkerframework.**
 -dontwarn org.checkerframework.**
 -dontwarn android.app.**
--dontwarn org.jf.dexlib2.dexbacked.**
 
 #混淆变量和函数
 -obfuscationdictionary proguard-class.txt
@@ -56,13 +56,6 @@ import de.robv.android.xposed.callbacks.XC_LoadPackage;
 
 public class Hook {
     private final static String PACKAGE_NAME = "com.netease.cloudmusic";
-    //进程初始化状态
-    public boolean playProcessInit = false;
-    public boolean mainProcessInit = false;
-    //主线程反编译dex完成后通知可以对play进程进行hook了
-    private final String msg_hook_play_process = "hookPlayProcess";
-    //play进程初始化完成通知主线程
-    private final String msg_play_process_init_finish = "playProcessInitFinish";
     //发通知
     public static final String msg_send_notification = "sendNotification";
 
@@ -86,7 +79,7 @@ public class Hook {
                             if (!SettingHelper.getInstance().getSetting(SettingHelper.master_key))
                                 return;
                             //音源代理
-                            new ProxyHook(context, false);
+                            new ProxyHook(context, versionCode, false);
                             //黑胶
                             if (SettingHelper.getInstance().isEnable(SettingHelper.black_key)) {
                                 new BlackHook(context, versionCode);
@@ -108,6 +101,8 @@ public class Hook {
                             new InternalDialogHook(context, versionCode);
                             //修复登录失败
                             new LoginFixHook(context);
+                            //黑胶停转，隐藏K歌按钮
+                            new PlayerActivityHook(context, versionCode);
 //                            new TestHook(context);
                             ClassHelper.getCacheClassList(context, versionCode, () -> {
                                 //获取账号信息
@@ -126,30 +121,19 @@ public class Hook {
                                 new HideBannerHook(context, versionCode);
                                 //隐藏小红点
                                 new HideBubbleHook(context);
-                                //黑胶停转，隐藏K歌按钮
-                                new PlayerActivityHook(context, versionCode);
                                 //打开评论后优先显示最热评论
                                 new CommentHotClickHook(context);
                                 //绕过CDN责任链拦截器检测
                                 new CdnHook(context, versionCode);
                                 //广告移除增强
                                 new AdExtraHook();
-
-                                mainProcessInit = true;
-                                if (mainProcessInit && playProcessInit)
-                                    context.sendBroadcast(new Intent(msg_hook_play_process));
                             });
                             IntentFilter intentFilter = new IntentFilter();
-                            intentFilter.addAction(msg_play_process_init_finish);
                             intentFilter.addAction(msg_send_notification);
                             context.registerReceiver(new BroadcastReceiver() {
                                 @Override
                                 public void onReceive(Context c, Intent intent) {
-                                    if (msg_play_process_init_finish.equals(intent.getAction())) {
-                                        playProcessInit = true;
-                                        if (mainProcessInit && playProcessInit)
-                                            context.sendBroadcast(new Intent(msg_hook_play_process));
-                                    } else if (msg_send_notification.equals(intent.getAction())
+                                    if (msg_send_notification.equals(intent.getAction())
                                             && SettingHelper.getInstance().isEnable(SettingHelper.warn_key)) {
                                         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
                                             NotificationHelper.getInstance(context).sendUnLockNotification(context, intent.getIntExtra("code", 0x10),
@@ -160,21 +144,15 @@ public class Hook {
                             }, intentFilter);
                         } else if (processName.equals(PACKAGE_NAME + ":play") && SettingHelper.getInstance().getSetting(SettingHelper.master_key)) {
                             //音源代理
-                            new ProxyHook(context, true);
-                            IntentFilter intentFilter = new IntentFilter();
-                            intentFilter.addAction(msg_hook_play_process);
-                            context.registerReceiver(new BroadcastReceiver() {
-                                @Override
-                                public void onReceive(Context c, Intent intent) {
-                                    if (msg_hook_play_process.equals(intent.getAction())) {
-                                        ClassHelper.getCacheClassList(context, versionCode, () -> {
-                                            new EAPIHook(context);
-                                            new CdnHook(context, versionCode);
-                                        });
-                                    }
-                                }
-                            }, intentFilter);
-                            context.sendBroadcast(new Intent(msg_play_process_init_finish));
+                            new ProxyHook(context, versionCode, true);
+                            //直接使用主进程发布的索引
+                            ClassHelper.attachSharedIndex(context, versionCode, () -> {
+                                new EAPIHook(context);
+                                new CdnHook(context, versionCode);
+                            });
+                        } else if (SettingHelper.getInstance().getSetting(SettingHelper.master_key)) {
+                            //宿主更新后由后台进程预建索引
+                            ClassHelper.precomputeIfUpdated(context, versionCode, null);
                         }
                     }
                 });
@@ -43,13 +43,6 @@ import de.robv.android.xposed.callbacks.XC_LoadPackage;
 public class HookOther {
     private static String PACKAGE_NAME;
     int versionCode = 0;
-    //进程初始化状态
-    public boolean playProcessInit = false;
-    public boolean mainProcessInit = false;
-    //主线程反编译dex完成后通知可以对play进程进行hook了
-    private final String msg_hook_play_process = "hookPlayProcess";
-    //play进程初始化完成通知主线程
-    private final String msg_play_process_init_finish = "playProcessInitFinish";
     //发通知
     public static final String msg_send_notification = "sendNotification";
 
@@ -81,7 +74,7 @@ public class HookOther {
                             if (!SettingHelper.getInstance().getSetting(SettingHelper.master_key))
                                 return;
                             //音源代理
-                            new ProxyHook(context, false);
+                            new ProxyHook(context, versionCode, false);
                             //黑胶
                             if (SettingHelper.getInstance().isEnable(SettingHelper.black_key)) {
                                 new BlackHook(context, versionCode);
@@ -118,22 +111,13 @@ public class HookOther {
                                 //黑胶停转，隐藏K歌按钮
                                 new PlayerActivityHook(context, versionCode);
                                 new CdnHook(context, versionCode);
-
-                                mainProcessInit = true;
-                                if (mainProcessInit && playProcessInit)
-                                    context.sendBroadcast(new Intent(msg_hook_play_process));
                             });
                             IntentFilter intentFilter = new IntentFilter();
-                            intentFilter.addAction(msg_play_process_init_finish);
                             intentFilter.addAction(msg_send_notification);
                             context.registerReceiver(new BroadcastReceiver() {
                                 @Override
                                 public void onReceive(Context c, Intent intent) {
-                                    if (msg_play_process_init_finish.equals(intent.getAction())) {
-                                        playProcessInit = true;
-                                        if (mainProcessInit && playProcessInit)
-                                            context.sendBroadcast(new Intent(msg_hook_play_process));
-                                    } else if (msg_send_notification.equals(intent.getAction())) {
+                                    if (msg_send_notification.equals(intent.getAction())) {
                                         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
                                             NotificationHelper.getInstance(context).sendUnLockNotification(context, intent.getIntExtra("code", 0x10),
                                                     intent.getStringExtra("title"), intent.getStringExtra("title"), intent.getStringExtra("message"));
@@ -143,21 +127,15 @@ public class HookOther {
                             }, intentFilter);
                         } else if (processName.equals(PACKAGE_NAME + ":play") && SettingHelper.getInstance().getSetting(SettingHelper.master_key)) {
                             //音源代理
-                            new ProxyHook(context, true);
-                            IntentFilter intentFilter = new IntentFilter();
-                            intentFilter.addAction(msg_hook_play_process);
-                            context.registerReceiver(new BroadcastReceiver() {
-                                @Override
-                                public void onReceive(Context c, Intent intent) {
-                                    if (msg_hook_play_process.equals(intent.getAction())) {
-                                        ClassHelper.getCacheClassList(context, versionCode, () -> {
-                                            new EAPIHook(context);
-                                            new CdnHook(context, versionCode);
-                                        });
-                                    }
-                                }
-                            }, intentFilter);
-                            context.sendBroadcast(new Intent(msg_play_process_init_finish));
+                            new ProxyHook(context, versionCode, true);
+                            //直接使用主进程发布的索引
+                            ClassHelper.attachSharedIndex(context, versionCode, () -> {
+                                new EAPIHook(context);
+                                new CdnHook(context, versionCode);
+                            });
+                        } else if (SettingHelper.getInstance().getSetting(SettingHelper.master_key)) {
+                            //宿主更新后由后台进程预建索引
+                            ClassHelper.precomputeIfUpdated(context, versionCode, null);
                         }
                     }
                 });
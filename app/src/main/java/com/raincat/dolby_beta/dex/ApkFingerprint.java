@@ -0,0 +1,98 @@
+package com.raincat.dolby_beta.dex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : apk指纹
+ *     version: 1.0
+ * </pre>
+ * 由zip中央目录里每个dex条目的CRC32与大小组成，不需要解压任何dex。
+ * 同一versionCode的测试版与正式版指纹不同；宿主更新时可按条目比较，只重新扫描变化了的dex。
+ */
+public final class ApkFingerprint {
+    private final List<String> dexNameList;
+    private final Map<String, Long> crcMap = new HashMap<>();
+    private final Map<String, Long> sizeMap = new HashMap<>();
+    private final String key;
+
+    private ApkFingerprint(List<String> dexNameList, Map<String, ZipEntry> entryMap) {
+        this.dexNameList = Collections.unmodifiableList(dexNameList);
+        CRC32 crc32 = new CRC32();
+        for (String dexName : dexNameList) {
+            ZipEntry entry = entryMap.get(dexName);
+            crcMap.put(dexName, entry.getCrc());
+            sizeMap.put(dexName, entry.getSize());
+            crc32.update(getDexKey(dexName).getBytes(StandardCharsets.UTF_8));
+        }
+        this.key = String.format("%08x", crc32.getValue());
+    }
+
+    /**
+     * 只读取zip中央目录
+     */
+    public static ApkFingerprint read(File appInstallFile) throws IOException {
+        List<String> dexNameList = new ArrayList<>();
+        Map<String, ZipEntry> entryMap = new HashMap<>();
+        try (ZipFile zipFile = new ZipFile(appInstallFile)) {
+            Enumeration<? extends ZipEntry> zip = zipFile.entries();
+            while (zip.hasMoreElements()) {
+                ZipEntry entry = zip.nextElement();
+                String name = entry.getName();
+                if (name.startsWith("classes") && name.endsWith(".dex")) {
+                    dexNameList.add(name);
+                    entryMap.put(name, entry);
+                }
+            }
+        }
+        Collections.sort(dexNameList, (o1, o2) -> Integer.compare(getDexIndex(o1), getDexIndex(o2)));
+        return new ApkFingerprint(dexNameList, entryMap);
+    }
+
+    private static int getDexIndex(String dexName) {
+        String index = dexName.substring("classes".length(), dexName.length() - ".dex".length());
+        try {
+            return index.isEmpty() ? 1 : Integer.parseInt(index);
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * apk内所有dex的名称，按classes.dex、classes2.dex...的顺序排列
+     */
+    public List<String> getDexNameList() {
+        return dexNameList;
+    }
+
+    public int getDexCrc(String dexName) {
+        return (int) (long) crcMap.get(dexName);
+    }
+
+    /**
+     * 单个dex的缓存键，dex内容不变时键不变
+     */
+    public String getDexKey(String dexName) {
+        return dexName.substring(0, dexName.length() - ".dex".length())
+                + "-" + String.format("%08x", crcMap.get(dexName)) + "-" + sizeMap.get(dexName);
+    }
+
+    /**
+     * 整个apk的缓存键
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,345 @@
+package com.raincat.dolby_beta.dex;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : dex类名二进制索引
+ *     version: 1.0
+ * </pre>
+ * 文件格式（大端）：
+ * <pre>
+ *     header : magic(4) formatVersion(4) hostVersion(4) count(4) stringTableSize(4) checksum(4)
+ *     offsets: count * u4，类名在字符串表中的起始位置，按类名UTF-8字节序排列
+ *     strings: 所有类名的UTF-8字节，首尾相接，不带分隔符
+ * </pre>
+ * hostVersion为宿主versionCode，单个dex的索引则为该dex条目的CRC32。checksum为header之后所有字节的CRC32。索引文件以只读方式内存映射，查询时只解码命中的类名。
+ * <p>
+ * 类名按字节序排列后，同一包（以及任意字面前缀）下的类名总是连续的一段，整个索引相当于一棵隐式的包名前缀树。
+ * 以^开头的正则会先取出其字面前缀，二分查找到对应子树的区间后只对区间内的类名做正则匹配。
+ */
+public final class ClassIndex {
+    private static final int MAGIC = 0x44424349;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_FORMAT_VERSION = 4;
+    private static final int OFFSET_HOST_VERSION = 8;
+    private static final int OFFSET_COUNT = 12;
+    private static final int OFFSET_STRING_TABLE_SIZE = 16;
+    private static final int OFFSET_CHECKSUM = 20;
+
+    private final ByteBuffer buffer;
+    private final int version;
+    private final int count;
+    private final int stringTableStart;
+    private final int stringTableSize;
+
+    private ClassIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.version = buffer.getInt(OFFSET_HOST_VERSION);
+        this.count = buffer.getInt(OFFSET_COUNT);
+        this.stringTableSize = buffer.getInt(OFFSET_STRING_TABLE_SIZE);
+        this.stringTableStart = HEADER_SIZE + count * 4;
+    }
+
+    /**
+     * 由扫描得到的类名构建内存索引，类名会被排序去重
+     */
+    public static ClassIndex build(int version, Collection<String> names) {
+        ClassNameArena arena = new ClassNameArena(names.size(), names.size() * 32);
+        for (String name : names)
+            arena.add(name);
+        return build(version, arena);
+    }
+
+    /**
+     * 由字节池中的类名构建内存索引，类名会被排序去重，排序与写入都直接操作字节，不解码为String
+     */
+    public static ClassIndex build(int version, ClassNameArena arena) {
+        int[] order = arena.sortedOrder();
+        int n = order.length;
+
+        int unique = 0;
+        int tableSize = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || arena.compare(order[i], order[unique - 1]) != 0) {
+                order[unique++] = order[i];
+                tableSize += arena.length(order[i]);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + unique * 4 + tableSize);
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_FORMAT_VERSION, FORMAT_VERSION);
+        buffer.putInt(OFFSET_HOST_VERSION, version);
+        buffer.putInt(OFFSET_COUNT, unique);
+        buffer.putInt(OFFSET_STRING_TABLE_SIZE, tableSize);
+        buffer.position(HEADER_SIZE);
+        int offset = 0;
+        for (int i = 0; i < unique; i++) {
+            buffer.putInt(offset);
+            offset += arena.length(order[i]);
+        }
+        byte[] bytes = arena.bytes();
+        for (int i = 0; i < unique; i++)
+            buffer.put(bytes, arena.start(order[i]), arena.length(order[i]));
+        buffer.putInt(OFFSET_CHECKSUM, checksum(buffer));
+        buffer.clear();
+        return new ClassIndex(buffer);
+    }
+
+    /**
+     * 内存映射一个索引文件，文件不存在、损坏或版本不符时返回null
+     */
+    public static ClassIndex open(File file, int version) {
+        if (!file.isFile())
+            return null;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE)
+                return null;
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(OFFSET_MAGIC) != MAGIC
+                    || buffer.getInt(OFFSET_FORMAT_VERSION) != FORMAT_VERSION
+                    || buffer.getInt(OFFSET_HOST_VERSION) != version)
+                return null;
+            long count = buffer.getInt(OFFSET_COUNT);
+            long tableSize = buffer.getInt(OFFSET_STRING_TABLE_SIZE);
+            if (count < 0 || tableSize < 0 || HEADER_SIZE + count * 4 + tableSize != size)
+                return null;
+            if (buffer.getInt(OFFSET_CHECKSUM) != checksum(buffer))
+                return null;
+            return new ClassIndex(buffer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 先写入临时文件再重命名，避免其他进程读到写了一半的索引
+     */
+    public void writeTo(File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(tmpFile, false)) {
+            FileChannel channel = outputStream.getChannel();
+            ByteBuffer source = buffer.duplicate();
+            source.clear();
+            while (source.hasRemaining())
+                channel.write(source);
+            outputStream.getFD().sync();
+        }
+        if (!tmpFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            throw new IOException("rename " + tmpFile + " failed");
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 解码第index个类名
+     */
+    public String get(int index) {
+        int start = nameStart(index);
+        int end = nameStart(index + 1);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer source = buffer.duplicate();
+        source.position(start);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 返回所有匹配pattern的类名，结果可修改
+     */
+    public List<String> filter(Pattern pattern) {
+        int start = 0, end = count;
+        String prefix = literalPrefix(pattern);
+        if (!prefix.isEmpty()) {
+            byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+            start = lowerBound(prefixBytes, false);
+            end = lowerBound(prefixBytes, true);
+        }
+        List<String> list = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            String name = get(i);
+            if (pattern.matcher(name).find())
+                list.add(name);
+        }
+        return list;
+    }
+
+    /**
+     * 一次遍历同时过滤多个pattern，返回与patterns一一对应的结果。
+     * 只遍历各pattern前缀区间的并集，每个类名最多解码一次
+     */
+    public List<List<String>> filter(List<Pattern> patterns) {
+        int size = patterns.size();
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        List<List<String>> results = new ArrayList<>(size);
+        Integer[] order = new Integer[size];
+        for (int p = 0; p < size; p++) {
+            String prefix = literalPrefix(patterns.get(p));
+            if (prefix.isEmpty()) {
+                starts[p] = 0;
+                ends[p] = count;
+            } else {
+                byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+                starts[p] = lowerBound(prefixBytes, false);
+                ends[p] = lowerBound(prefixBytes, true);
+            }
+            results.add(new ArrayList<>());
+            order[p] = p;
+        }
+        Arrays.sort(order, (o1, o2) -> Integer.compare(starts[o1], starts[o2]));
+
+        //按区间起点扫描，跳过没有任何pattern覆盖的空隙
+        int i = 0;
+        for (int o = 0; o < size; o++) {
+            i = Math.max(i, starts[order[o]]);
+            int end = ends[order[o]];
+            for (int next = o + 1; next < size && starts[order[next]] < end; next++)
+                end = Math.max(end, ends[order[next]]);
+            for (; i < end; i++) {
+                String name = null;
+                for (int p = 0; p < size; p++) {
+                    if (i < starts[p] || i >= ends[p])
+                        continue;
+                    if (name == null)
+                        name = get(i);
+                    if (patterns.get(p).matcher(name).find())
+                        results.get(p).add(name);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 取出以^开头的正则中必然出现在类名开头的字面字符，无法确定时返回空串
+     */
+    public static String literalPrefix(Pattern pattern) {
+        String regex = pattern.pattern();
+        //带标志位或有分支时^不一定约束整个表达式
+        if (pattern.flags() != 0 || !regex.startsWith("^") || regex.indexOf('|') >= 0)
+            return "";
+        StringBuilder prefix = new StringBuilder();
+        int i = 1;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            char literal;
+            int next;
+            if (c == '\\' && i + 1 < regex.length() && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                literal = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                literal = c;
+                next = i + 1;
+            } else
+                break;
+            //后面跟着量词时该字符可能不出现
+            if (next < regex.length() && "?*+{".indexOf(regex.charAt(next)) >= 0)
+                break;
+            prefix.append(literal);
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * 二分查找第一个不小于prefix的类名，upper为true时查找第一个大于所有以prefix开头类名的位置
+     */
+    private int lowerBound(byte[] prefix, boolean upper) {
+        int low = 0, high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int c = comparePrefix(mid, prefix);
+            if (c < 0 || upper && c == 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * 比较第index个类名的前prefix.length个字节与prefix，类名较短且为prefix的前缀时视为较小
+     */
+    private int comparePrefix(int index, byte[] prefix) {
+        int start = nameStart(index);
+        int end = nameStart(index + 1);
+        int length = Math.min(end - start, prefix.length);
+        for (int i = 0; i < length; i++) {
+            int c = (buffer.get(start + i) & 0xff) - (prefix[i] & 0xff);
+            if (c != 0)
+                return c;
+        }
+        return length < prefix.length ? -1 : 0;
+    }
+
+    /**
+     * 解码全部类名，仅在兜底查找时使用
+     */
+    public List<String> toList() {
+        List<String> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            list.add(get(i));
+        return list;
+    }
+
+    /**
+     * 把全部类名的原始字节追加到字节池，合并各dex的缓存时无需解码
+     */
+    public void appendTo(ClassNameArena arena) {
+        for (int i = 0; i < count; i++) {
+            int start = nameStart(i);
+            arena.add(buffer, start, nameStart(i + 1) - start);
+        }
+    }
+
+    /**
+     * 第index个类名在缓冲区中的起始位置，index为count时返回字符串表末尾
+     */
+    private int nameStart(int index) {
+        return stringTableStart + (index < count ? buffer.getInt(HEADER_SIZE + index * 4) : stringTableSize);
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc32 = new CRC32();
+        byte[] chunk = new byte[8192];
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        source.position(HEADER_SIZE);
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            crc32.update(chunk, 0, length);
+        }
+        return (int) crc32.getValue();
+    }
+}
@@ -0,0 +1,161 @@
+package com.raincat.dolby_beta.dex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 类名字节池
+ *     version: 1.0
+ * </pre>
+ * 扫描过程中收集类名用：所有类名的UTF-8字节首尾相接存放在一个数组里，另用int数组记录各自的起始位置，
+ * 几万个类名只占两个数组，不再为每个类名各分配一个String和它的字符数组。只有取出时才解码为String。
+ */
+public final class ClassNameArena {
+    private byte[] bytes;
+    private int length;
+    //offsets[i]为第i个类名的起始位置，offsets[count]为末尾
+    private int[] offsets;
+    private int count;
+
+    public ClassNameArena() {
+        this(1024, 32 * 1024);
+    }
+
+    public ClassNameArena(int expectedCount, int expectedBytes) {
+        offsets = new int[Math.max(1, expectedCount) + 1];
+        bytes = new byte[Math.max(16, expectedBytes)];
+    }
+
+    public void add(String className) {
+        byte[] encoded = className.getBytes(StandardCharsets.UTF_8);
+        add(encoded, 0, encoded.length);
+    }
+
+    /**
+     * 按类型描述符添加，如Lcom/netease/cloudmusic/a;添加为com.netease.cloudmusic.a，
+     * 纯ASCII的描述符直接逐字节转换，不产生中间字符串
+     */
+    public void addDescriptor(String descriptor) {
+        int end = descriptor.length() - 1;
+        ensureCapacity(end - 1);
+        for (int i = 1; i < end; i++) {
+            char c = descriptor.charAt(i);
+            if (c >= 0x80) {
+                length = offsets[count];
+                add(descriptor.substring(1, end).replace('/', '.'));
+                return;
+            }
+            bytes[length++] = (byte) (c == '/' ? '.' : c);
+        }
+        offsets[++count] = length;
+    }
+
+    public void add(byte[] source, int offset, int size) {
+        ensureCapacity(size);
+        System.arraycopy(source, offset, bytes, length, size);
+        length += size;
+        offsets[++count] = length;
+    }
+
+    /**
+     * 从内存映射的索引直接复制字节
+     */
+    void add(ByteBuffer source, int offset, int size) {
+        ensureCapacity(size);
+        ByteBuffer duplicate = source.duplicate();
+        duplicate.position(offset);
+        duplicate.get(bytes, length, size);
+        length += size;
+        offsets[++count] = length;
+    }
+
+    public void addAll(ClassNameArena other) {
+        for (int i = 0; i < other.count; i++)
+            add(other.bytes, other.offsets[i], other.offsets[i + 1] - other.offsets[i]);
+    }
+
+    private void ensureCapacity(int size) {
+        if (count + 2 > offsets.length)
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        if (length + size > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + size));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public String get(int index) {
+        return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    int start(int index) {
+        return offsets[index];
+    }
+
+    int length(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * 按无符号字节序比较两个类名
+     */
+    int compare(int a, int b) {
+        int aStart = offsets[a], aLength = offsets[a + 1] - aStart;
+        int bStart = offsets[b], bLength = offsets[b + 1] - bStart;
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int c = (bytes[aStart + i] & 0xff) - (bytes[bStart + i] & 0xff);
+            if (c != 0)
+                return c;
+        }
+        return aLength - bLength;
+    }
+
+    /**
+     * 返回按字节序排列的类名序号，只排序int数组，不移动字节
+     */
+    int[] sortedOrder() {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++)
+            order[i] = i;
+        int[] work = new int[count];
+        mergeSort(order, work, 0, count);
+        return order;
+    }
+
+    private void mergeSort(int[] order, int[] work, int from, int to) {
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                int value = order[i];
+                int j = i - 1;
+                while (j >= from && compare(order[j], value) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = value;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, work, from, middle);
+        mergeSort(order, work, middle, to);
+        if (compare(order[middle - 1], order[middle]) <= 0)
+            return;
+        System.arraycopy(order, from, work, from, to - from);
+        int left = from, right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < middle && compare(work[left], work[right]) <= 0)
+                order[i] = work[left++];
+            else
+                order[i] = work[right++];
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.raincat.dolby_beta.dex;
+
+import com.annimon.stream.function.Predicate;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 类结构特征
+ *     version: 1.0
+ * </pre>
+ * 扫描dex时记录的访问标志、父类、接口、字段类型与方法原型，类型名与Class.getName()格式一致，
+ * 查询时不需要加载类。
+ */
+public final class ClassSignature {
+    private final String name;
+    private final int accessFlags;
+    private final String superclass;
+    private final List<String> interfaces;
+    private final List<String> fieldTypes;
+    private final List<MethodSignature> methods;
+
+    public ClassSignature(String name, int accessFlags, String superclass, List<String> interfaces,
+                          List<String> fieldTypes, List<MethodSignature> methods) {
+        this.name = name;
+        this.accessFlags = accessFlags;
+        this.superclass = superclass;
+        this.interfaces = interfaces;
+        this.fieldTypes = fieldTypes;
+        this.methods = methods;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    public boolean isPublic() {
+        return Modifier.isPublic(accessFlags);
+    }
+
+    public boolean isFinal() {
+        return Modifier.isFinal(accessFlags);
+    }
+
+    public boolean isAbstract() {
+        return Modifier.isAbstract(accessFlags);
+    }
+
+    public boolean isInterface() {
+        return Modifier.isInterface(accessFlags);
+    }
+
+    /**
+     * 没有父类时为null
+     */
+    public String getSuperclass() {
+        return superclass;
+    }
+
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    public List<String> getFieldTypes() {
+        return fieldTypes;
+    }
+
+    public List<MethodSignature> getMethods() {
+        return methods;
+    }
+
+    public boolean hasFieldType(String type) {
+        return fieldTypes.contains(type);
+    }
+
+    public boolean hasField(Predicate<String> predicate) {
+        for (String fieldType : fieldTypes)
+            if (predicate.test(fieldType))
+                return true;
+        return false;
+    }
+
+    public boolean hasMethod(Predicate<MethodSignature> predicate) {
+        for (MethodSignature method : methods)
+            if (predicate.test(method))
+                return true;
+        return false;
+    }
+
+    /**
+     * 结构指纹：字段类型集合、各方法的参数个数与声明异常数。宿主更新时混淆名会变，
+     * 这些结构通常不变，用于在新版本中辨认上个版本解析出的类。
+     * 混淆过的类型统一记为“?”，格式如“f:int f:java.lang.String f:? m:0/0 m:1/2 m:1/2#2”
+     */
+    public String getFingerprint() {
+        Set<String> tokens = new TreeSet<>();
+        for (String fieldType : fieldTypes)
+            tokens.add("f:" + stableTypeName(fieldType));
+        Map<String, Integer> methodCount = new HashMap<>();
+        List<String> methodTokens = new ArrayList<>();
+        for (MethodSignature method : methods) {
+            String token = "m:" + method.getParameterCount() + "/" + method.getExceptionCount();
+            Integer count = methodCount.get(token);
+            count = count == null ? 1 : count + 1;
+            methodCount.put(token, count);
+            methodTokens.add(count == 1 ? token : token + "#" + count);
+        }
+        tokens.addAll(methodTokens);
+        StringBuilder builder = new StringBuilder();
+        for (String token : tokens) {
+            if (builder.length() != 0)
+                builder.append(' ');
+            builder.append(token);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 两个结构指纹的相似度，取值0~1，为共有项数与全部项数之比
+     */
+    public static float similarity(String fingerprint, String other) {
+        if (fingerprint == null || other == null)
+            return 0;
+        Set<String> tokens = fingerprint.isEmpty() ? Collections.<String>emptySet() : new HashSet<>(Arrays.asList(fingerprint.split(" ")));
+        Set<String> otherTokens = other.isEmpty() ? Collections.<String>emptySet() : new HashSet<>(Arrays.asList(other.split(" ")));
+        if (tokens.isEmpty() && otherTokens.isEmpty())
+            return 1;
+        int same = 0;
+        for (String token : tokens)
+            if (otherTokens.contains(token))
+                same++;
+        return (float) same / (tokens.size() + otherTokens.size() - same);
+    }
+
+    /**
+     * 系统与基本类型原样保留，其余类型可能被混淆，统一记为“?”，数组保留维数
+     */
+    private static String stableTypeName(String typeName) {
+        int dimension = 0;
+        while (dimension < typeName.length() && typeName.charAt(dimension) == '[')
+            dimension++;
+        String elementType = dimension == 0 ? typeName : typeName.substring(dimension);
+        if (dimension != 0 && elementType.length() > 1)
+            //数组元素为[Ljava.lang.String;的形式
+            elementType = elementType.substring(1, elementType.length() - 1);
+        boolean stable = elementType.indexOf('.') < 0 || elementType.startsWith("java.") || elementType.startsWith("javax.")
+                || elementType.startsWith("android.") || elementType.startsWith("kotlin.");
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < dimension; i++)
+            builder.append('[');
+        return builder.append(stable ? elementType : "?").toString();
+    }
+
+    /**
+     * 将dex类型描述符转换为Class.getName()的格式，如I->int，Ljava/lang/String;->java.lang.String，
+     * [Ljava/lang/String;->[Ljava.lang.String;
+     */
+    public static String typeName(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'V':
+                return "void";
+            case 'Z':
+                return "boolean";
+            case 'B':
+                return "byte";
+            case 'S':
+                return "short";
+            case 'C':
+                return "char";
+            case 'I':
+                return "int";
+            case 'J':
+                return "long";
+            case 'F':
+                return "float";
+            case 'D':
+                return "double";
+            case 'L':
+                return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+            default:
+                return descriptor.replace('/', '.');
+        }
+    }
+
+    public static final class MethodSignature {
+        private final int accessFlags;
+        private final String returnType;
+        private final List<String> parameterTypes;
+        private final int exceptionCount;
+
+        public MethodSignature(int accessFlags, String returnType, List<String> parameterTypes, int exceptionCount) {
+            this.accessFlags = accessFlags;
+            this.returnType = returnType;
+            this.parameterTypes = parameterTypes;
+            this.exceptionCount = exceptionCount;
+        }
+
+        public int getAccessFlags() {
+            return accessFlags;
+        }
+
+        public boolean isPublic() {
+            return Modifier.isPublic(accessFlags);
+        }
+
+        public boolean isFinal() {
+            return Modifier.isFinal(accessFlags);
+        }
+
+        public String getReturnType() {
+            return returnType;
+        }
+
+        public List<String> getParameterTypes() {
+            return parameterTypes;
+        }
+
+        public int getParameterCount() {
+            return parameterTypes.size();
+        }
+
+        public String getParameterType(int index) {
+            return parameterTypes.get(index);
+        }
+
+        /**
+         * throws声明的异常数量
+         */
+        public int getExceptionCount() {
+            return exceptionCount;
+        }
+    }
+}
@@ -0,0 +1,823 @@
+package com.raincat.dolby_beta.dex;
+
+import com.annimon.stream.function.Predicate;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 流式dex读取
+ *     version: 1.0
+ * </pre>
+ * 直接从apk中读取dex的各id表与类定义，不把整个dex解压到堆里：
+ * 未压缩的dex条目内存映射apk中的对应区域，压缩的条目用一个小缓冲区边解压边读。
+ * 只保留id表、类型名以及需要记录结构特征的类的数据，峰值内存在几MB以内。
+ * <p>
+ * data区内字符串、类数据、注解等结构的先后顺序由打包工具决定，读取请求按偏移排序后顺序读取。
+ * 类型列表的偏移在读完id表时已全部知道，直接全部读取；注解集与注解只能从注解目录找到，
+ * 而d8与dexlib2都把它们放在注解目录之前，所以第一遍跳过的未知区域按偏移保留下来（上限SPILL_LIMIT），
+ * 落在当前位置之前的请求先从保留的区域读取。仍然读不到的请求留到下一遍从头再读，
+ * 压缩的条目每多一遍就要多解压一次，常见布局下一遍即可读完。
+ */
+public final class DexStreamReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int HEADER_SIZE = 0x70;
+    private static final int NO_INDEX = -1;
+    private static final int VALUE_ARRAY = 0x1c;
+    private static final String THROWS_ANNOTATION = "Ldalvik/annotation/Throws;";
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xffff;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    //保留跳过区域的内存上限，超出后剩下的请求留到下一遍
+    private static final int SPILL_LIMIT = 2 * 1024 * 1024;
+
+    private final ByteBuffer entryBuffer;
+    private final boolean deflated;
+    private final Predicate<String> classFilter;
+    private final Predicate<String> signatureFilter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final Inflater inflater;
+
+    private final PriorityQueue<Request> requestQueue = new PriorityQueue<>();
+    private final List<Request> deferredList = new ArrayList<>();
+
+    //id表
+    private int[] stringDataOffsets;
+    private int[] typeStringIds;
+    private int[] protoReturnTypes;
+    private int[] protoParameterOffsets;
+    private char[] fieldTypes;
+    private char[] methodProtos;
+    private int[] classTypes;
+    private int[] classAccessFlags;
+    private int[] classSuperclasses;
+    private int[] classInterfaceOffsets;
+    private int[] classAnnotationOffsets;
+    private int[] classDataOffsets;
+
+    //字符串序号 -> 以该字符串为类型名的类定义序号
+    private final Map<Integer, Integer> classDefByString = new HashMap<>();
+    //字符串序号 -> 字符串，只读取类型名
+    private final Map<Integer, String> stringMap = new HashMap<>();
+    private final Map<Integer, ClassData> classDataMap = new HashMap<>();
+    private final Map<Integer, int[]> typeListMap = new HashMap<>();
+    private final Set<Integer> directorySet = new HashSet<>();
+    //方法序号 -> 方法注解集偏移
+    private final Map<Integer, Integer> methodAnnotationMap = new HashMap<>();
+    private final Map<Integer, int[]> annotationSetMap = new HashMap<>();
+    //注解偏移 -> {类型序号, 第一个元素为数组时的长度}
+    private final Map<Integer, int[]> annotationMap = new HashMap<>();
+
+    //第一遍跳过时保留下来的区域，起始偏移 -> 内容
+    private final TreeMap<Integer, byte[]> spillMap = new TreeMap<>();
+    private int spillSize;
+    //保留范围[spillStart, spillEnd)，以及其中已知不需要保留的区段，按偏移排序的起止偏移
+    private int spillStart;
+    private int spillEnd;
+    private int[] spillExcludes = new int[0];
+
+    private DexStreamReader(ByteBuffer entryBuffer, boolean deflated, Predicate<String> classFilter, Predicate<String> signatureFilter) {
+        this.entryBuffer = entryBuffer;
+        this.deflated = deflated;
+        this.classFilter = classFilter;
+        this.signatureFilter = signatureFilter;
+        this.inflater = deflated ? new Inflater(true) : null;
+    }
+
+    /**
+     * 读取apk中一个dex的类名与结构特征
+     *
+     * @param classFilter     按类型描述符（如Lcom/netease/cloudmusic/a;）过滤要收录的类名
+     * @param signatureFilter 收录的类中需要记录结构特征的类
+     */
+    public static void scan(File apkFile, String dexName, Predicate<String> classFilter, Predicate<String> signatureFilter,
+                            ClassNameArena classList, List<ClassSignature> signatureList) throws IOException {
+        DexStreamReader reader;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(apkFile, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            ByteBuffer central = findCentralEntry(apkFile, channel, dexName);
+            int method = central.getShort(10) & 0xffff;
+            long compressedSize = central.getInt(20) & 0xffffffffL;
+            long localOffset = central.getInt(42) & 0xffffffffL;
+            if (compressedSize == 0xffffffffL || localOffset == 0xffffffffL || (central.getInt(24) & 0xffffffffL) == 0xffffffffL)
+                throw zip64(apkFile, dexName);
+            if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED)
+                throw new IOException(dexName + " unsupported compression method " + method);
+            ByteBuffer local = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, local, localOffset);
+            if (local.getInt(0) != LOCAL_SIGNATURE)
+                throw new IOException(dexName + " bad local header");
+            long dataOffset = localOffset + 30 + (local.getShort(26) & 0xffff) + (local.getShort(28) & 0xffff);
+            ByteBuffer entryBuffer = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, compressedSize);
+            reader = new DexStreamReader(entryBuffer, method == ZipEntry.DEFLATED, classFilter, signatureFilter);
+        }
+        try {
+            reader.read();
+            reader.collect(classList, signatureList);
+        } finally {
+            if (reader.inflater != null)
+                reader.inflater.end();
+        }
+    }
+
+    /**
+     * zip64格式的apk需要另外解析扩展字段，目前不支持，记录日志后放弃该dex
+     */
+    private static IOException zip64(File apkFile, String entryName) {
+        String message = apkFile.getName() + " is zip64, " + entryName + " not scanned";
+        XposedBridge.log("DolbyBeta: " + message);
+        return new IOException(message);
+    }
+
+    /**
+     * 在zip中央目录中查找条目，不支持zip64
+     */
+    private static ByteBuffer findCentralEntry(File apkFile, FileChannel channel, String entryName) throws IOException {
+        long fileSize = channel.size();
+        int tailSize = (int) Math.min(fileSize, EOCD_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, tail, fileSize - tailSize);
+        int eocd = -1;
+        for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0)
+            throw new IOException("zip end of central directory not found");
+        int entryCount = tail.getShort(eocd + 10) & 0xffff;
+        long centralSize = tail.getInt(eocd + 12) & 0xffffffffL;
+        long centralOffset = tail.getInt(eocd + 16) & 0xffffffffL;
+        //zip64的结束记录前有定位记录，真正的数值在zip64结束记录中，这里的字段为0xffff或0xffffffff
+        boolean zip64Locator = eocd >= ZIP64_LOCATOR_SIZE && tail.getInt(eocd - ZIP64_LOCATOR_SIZE) == ZIP64_LOCATOR_SIGNATURE;
+        if (zip64Locator || entryCount == 0xffff || centralSize == 0xffffffffL || centralOffset == 0xffffffffL)
+            throw zip64(apkFile, entryName);
+        ByteBuffer central = channel.map(FileChannel.MapMode.READ_ONLY, centralOffset, centralSize).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+        int position = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (central.getInt(position) != CENTRAL_SIGNATURE)
+                break;
+            int nameLength = central.getShort(position + 28) & 0xffff;
+            int extraLength = central.getShort(position + 30) & 0xffff;
+            int commentLength = central.getShort(position + 32) & 0xffff;
+            if (nameLength == name.length && regionEquals(central, position + 46, name)) {
+                ByteBuffer entry = central.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                entry.position(position);
+                return entry.slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        throw new IOException(entryName + " not found");
+    }
+
+    private static boolean regionEquals(ByteBuffer buffer, int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++)
+            if (buffer.get(offset + i) != bytes[i])
+                return false;
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("unexpected end of file");
+        }
+    }
+
+    /**
+     * 逐遍读取，直到没有被推迟的请求。只在第一遍保留跳过的区域
+     */
+    private void read() throws IOException {
+        requestQueue.add(new Request(0, this::readHeader));
+        boolean firstPass = true;
+        while (!requestQueue.isEmpty()) {
+            Cursor cursor = new Cursor(openStream(), firstPass);
+            firstPass = false;
+            while (!requestQueue.isEmpty()) {
+                Request request = requestQueue.poll();
+                if (request.offset < cursor.position) {
+                    if (!readSpilled(request))
+                        deferredList.add(request);
+                    continue;
+                }
+                cursor.skipTo(request.offset);
+                request.reader.read(cursor);
+            }
+            requestQueue.addAll(deferredList);
+            deferredList.clear();
+        }
+    }
+
+    /**
+     * 从保留的区域读取已经跳过的请求，该项超出保留区域时返回false
+     */
+    private boolean readSpilled(Request request) {
+        Map.Entry<Integer, byte[]> entry = spillMap.floorEntry(request.offset);
+        if (entry == null || request.offset >= entry.getKey() + entry.getValue().length)
+            return false;
+        try {
+            request.reader.read(new Cursor(entry.getValue(), request.offset - entry.getKey(), request.offset));
+            return true;
+        } catch (IOException e) {
+            //读到了保留区域之外，下一遍再读，文件确实损坏时下一遍会报错
+            return false;
+        }
+    }
+
+    /**
+     * 读完id表后确定保留范围：从data区第一个已知项到最后一个注解目录，
+     * 去掉字符串、类型列表、类数据、静态字段初始值和注解目录所在的区段，剩下的主要是注解与注解集。
+     * 代码在d8中位于所有已知项之前，在dexlib2中位于注解目录之后，都不在范围内
+     */
+    private void setSpillRange(int[] staticValuesOffsets) {
+        int[] directorySpan = span(classAnnotationOffsets);
+        int[][] spans = {span(stringDataOffsets), span(protoParameterOffsets), span(classInterfaceOffsets),
+                span(classDataOffsets), span(staticValuesOffsets), directorySpan};
+        spillStart = Integer.MAX_VALUE;
+        for (int[] span : spans)
+            spillStart = Math.min(spillStart, span[0]);
+        spillEnd = directorySpan[0] < directorySpan[1] ? directorySpan[1] : 0;
+        //按起点排序后合并重叠的区段
+        Arrays.sort(spans, (a, b) -> Integer.compare(a[0], b[0]));
+        List<Integer> excludes = new ArrayList<>();
+        for (int[] span : spans) {
+            if (span[0] >= span[1])
+                continue;
+            int last = excludes.size() - 1;
+            if (last > 0 && span[0] <= excludes.get(last))
+                excludes.set(last, Math.max(excludes.get(last), span[1]));
+            else {
+                excludes.add(span[0]);
+                excludes.add(span[1]);
+            }
+        }
+        spillExcludes = new int[excludes.size()];
+        for (int i = 0; i < spillExcludes.length; i++)
+            spillExcludes[i] = excludes.get(i);
+    }
+
+    /**
+     * 非0偏移的[最小值, 最大值]，没有时为空区段。最后一项只含起点，尾部会被保留，只有几个字节
+     */
+    private static int[] span(int[] offsets) {
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (int offset : offsets) {
+            if (offset == 0)
+                continue;
+            min = Math.min(min, offset);
+            max = Math.max(max, offset);
+        }
+        return min <= max ? new int[]{min, max + 1} : new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE};
+    }
+
+    /**
+     * position处跳过的内容是否需要保留
+     */
+    private boolean isSpilled(int position) {
+        if (position < spillStart || position >= spillEnd)
+            return false;
+        for (int i = 0; i < spillExcludes.length; i += 2)
+            if (position >= spillExcludes[i] && position < spillExcludes[i + 1])
+                return false;
+        return true;
+    }
+
+    /**
+     * position之后保留与否发生变化的第一个偏移
+     */
+    private int nextSpillBoundary(int position) {
+        int boundary = Integer.MAX_VALUE;
+        if (spillStart > position)
+            boundary = spillStart;
+        if (spillEnd > position)
+            boundary = Math.min(boundary, spillEnd);
+        for (int exclude : spillExcludes)
+            if (exclude > position)
+                boundary = Math.min(boundary, exclude);
+        return boundary;
+    }
+
+    private InputStream openStream() {
+        InputStream inputStream = new MappedInputStream(entryBuffer.duplicate(), deflated);
+        if (!deflated)
+            return inputStream;
+        inflater.reset();
+        return new InflaterInputStream(inputStream, inflater, BUFFER_SIZE);
+    }
+
+    /**
+     * 偏移为0表示该项不存在
+     */
+    private void request(int offset, ItemReader reader) {
+        if (offset != 0)
+            requestQueue.add(new Request(offset, reader));
+    }
+
+    private void readHeader(Cursor cursor) throws IOException {
+        if (cursor.readInt() != 0x0a786564)
+            throw new IOException("bad dex magic");
+        cursor.skipTo(56);
+        int stringIdsSize = cursor.readSize();
+        int stringIdsOffset = cursor.readInt();
+        int typeIdsSize = cursor.readSize();
+        int typeIdsOffset = cursor.readInt();
+        int protoIdsSize = cursor.readSize();
+        int protoIdsOffset = cursor.readInt();
+        int fieldIdsSize = cursor.readSize();
+        int fieldIdsOffset = cursor.readInt();
+        int methodIdsSize = cursor.readSize();
+        int methodIdsOffset = cursor.readInt();
+        int classDefsSize = cursor.readSize();
+        int classDefsOffset = cursor.readInt();
+        cursor.skipTo(HEADER_SIZE);
+
+        stringDataOffsets = new int[stringIdsSize];
+        typeStringIds = new int[typeIdsSize];
+        protoReturnTypes = new int[protoIdsSize];
+        protoParameterOffsets = new int[protoIdsSize];
+        fieldTypes = new char[fieldIdsSize];
+        methodProtos = new char[methodIdsSize];
+        classTypes = new int[classDefsSize];
+        classAccessFlags = new int[classDefsSize];
+        classSuperclasses = new int[classDefsSize];
+        classInterfaceOffsets = new int[classDefsSize];
+        classAnnotationOffsets = new int[classDefsSize];
+        classDataOffsets = new int[classDefsSize];
+
+        request(stringIdsOffset, c -> {
+            for (int i = 0; i < stringDataOffsets.length; i++)
+                stringDataOffsets[i] = c.readInt();
+        });
+        request(typeIdsOffset, c -> {
+            for (int i = 0; i < typeStringIds.length; i++) {
+                typeStringIds[i] = c.readInt();
+                //类型名都要读取，其余字符串跳过
+                int stringId = typeStringIds[i];
+                request(stringDataOffsets[stringId], s -> readTypeString(s, stringId));
+            }
+        });
+        request(protoIdsOffset, c -> {
+            for (int i = 0; i < protoReturnTypes.length; i++) {
+                c.readInt();
+                protoReturnTypes[i] = c.readInt();
+                protoParameterOffsets[i] = c.readInt();
+                //类型列表不多，偏移都已知，全部读取，不必等到知道哪些类需要时再回头读
+                requestTypeList(protoParameterOffsets[i]);
+            }
+        });
+        request(fieldIdsOffset, c -> {
+            for (int i = 0; i < fieldTypes.length; i++) {
+                c.readUnsignedShort();
+                fieldTypes[i] = (char) c.readUnsignedShort();
+                c.readInt();
+            }
+        });
+        request(methodIdsOffset, c -> {
+            for (int i = 0; i < methodProtos.length; i++) {
+                c.readUnsignedShort();
+                methodProtos[i] = (char) c.readUnsignedShort();
+                c.readInt();
+            }
+        });
+        request(classDefsOffset, c -> {
+            int[] staticValuesOffsets = new int[classTypes.length];
+            for (int i = 0; i < classTypes.length; i++) {
+                classTypes[i] = c.readInt();
+                classAccessFlags[i] = c.readInt();
+                classSuperclasses[i] = c.readInt();
+                classInterfaceOffsets[i] = c.readInt();
+                c.readInt();
+                classAnnotationOffsets[i] = c.readInt();
+                classDataOffsets[i] = c.readInt();
+                staticValuesOffsets[i] = c.readInt();
+                classDefByString.put(typeStringIds[classTypes[i]], i);
+                requestTypeList(classInterfaceOffsets[i]);
+            }
+            setSpillRange(staticValuesOffsets);
+        });
+    }
+
+    private void readTypeString(Cursor cursor, int stringId) throws IOException {
+        String type = cursor.readMutf8();
+        stringMap.put(stringId, type);
+        Integer classDef = classDefByString.get(stringId);
+        if (classDef != null && classFilter.test(type) && signatureFilter.test(type))
+            requestClass(classDef);
+    }
+
+    /**
+     * 需要记录结构特征的类，继续读取类数据与方法注解
+     */
+    private void requestClass(int classDef) {
+        request(classDataOffsets[classDef], c -> readClassData(c, classDef));
+        int directoryOffset = classAnnotationOffsets[classDef];
+        if (directoryOffset != 0 && directorySet.add(directoryOffset))
+            request(directoryOffset, this::readAnnotationDirectory);
+    }
+
+    private void requestTypeList(int offset) {
+        if (offset != 0 && !typeListMap.containsKey(offset)) {
+            typeListMap.put(offset, null);
+            request(offset, c -> {
+                int[] typeList = new int[c.readSize()];
+                for (int i = 0; i < typeList.length; i++)
+                    typeList[i] = c.readUnsignedShort();
+                typeListMap.put(offset, typeList);
+            });
+        }
+    }
+
+    private void readClassData(Cursor cursor, int classDef) throws IOException {
+        int staticFieldsSize = cursor.readUleb128();
+        int instanceFieldsSize = cursor.readUleb128();
+        int directMethodsSize = cursor.readUleb128();
+        int virtualMethodsSize = cursor.readUleb128();
+        ClassData classData = new ClassData(staticFieldsSize + instanceFieldsSize, directMethodsSize + virtualMethodsSize);
+        int index = 0;
+        for (int size : new int[]{staticFieldsSize, instanceFieldsSize}) {
+            int fieldIndex = 0;
+            for (int i = 0; i < size; i++) {
+                fieldIndex += cursor.readUleb128();
+                cursor.readUleb128();
+                classData.fields[index++] = fieldIndex;
+            }
+        }
+        index = 0;
+        for (int size : new int[]{directMethodsSize, virtualMethodsSize}) {
+            int methodIndex = 0;
+            for (int i = 0; i < size; i++) {
+                methodIndex += cursor.readUleb128();
+                classData.methods[index] = methodIndex;
+                classData.methodAccessFlags[index++] = cursor.readUleb128();
+                cursor.readUleb128();
+            }
+        }
+        classDataMap.put(classDef, classData);
+    }
+
+    private void readAnnotationDirectory(Cursor cursor) throws IOException {
+        cursor.readInt();
+        int fieldsSize = cursor.readSize();
+        int methodsSize = cursor.readSize();
+        cursor.readInt();
+        for (int i = 0; i < fieldsSize; i++) {
+            cursor.readInt();
+            cursor.readInt();
+        }
+        for (int i = 0; i < methodsSize; i++) {
+            int methodIndex = cursor.readInt();
+            int setOffset = cursor.readInt();
+            methodAnnotationMap.put(methodIndex, setOffset);
+            if (!annotationSetMap.containsKey(setOffset)) {
+                annotationSetMap.put(setOffset, null);
+                request(setOffset, this::readAnnotationSet);
+            }
+        }
+    }
+
+    private void readAnnotationSet(Cursor cursor) throws IOException {
+        int setOffset = cursor.position;
+        int[] annotationOffsets = new int[cursor.readSize()];
+        for (int i = 0; i < annotationOffsets.length; i++) {
+            annotationOffsets[i] = cursor.readInt();
+            int annotationOffset = annotationOffsets[i];
+            if (!annotationMap.containsKey(annotationOffset)) {
+                annotationMap.put(annotationOffset, null);
+                request(annotationOffset, c -> readAnnotation(c, annotationOffset));
+            }
+        }
+        annotationSetMap.put(setOffset, annotationOffsets);
+    }
+
+    /**
+     * 只记录注解类型与第一个元素的数组长度，Throws注解只有value一个元素
+     */
+    private void readAnnotation(Cursor cursor, int annotationOffset) throws IOException {
+        cursor.readUnsignedByte();
+        int type = cursor.readUleb128();
+        int arraySize = 0;
+        if (cursor.readUleb128() > 0) {
+            cursor.readUleb128();
+            if ((cursor.readUnsignedByte() & 0x1f) == VALUE_ARRAY)
+                arraySize = cursor.readUleb128();
+        }
+        annotationMap.put(annotationOffset, new int[]{type, arraySize});
+    }
+
+    private void collect(ClassNameArena classList, List<ClassSignature> signatureList) {
+        int throwsType = NO_INDEX;
+        for (int i = 0; i < typeStringIds.length; i++) {
+            if (THROWS_ANNOTATION.equals(stringMap.get(typeStringIds[i]))) {
+                throwsType = i;
+                break;
+            }
+        }
+        Map<Integer, String> typeNameMap = new HashMap<>();
+        for (int i = 0; i < classTypes.length; i++) {
+            String type = stringMap.get(typeStringIds[classTypes[i]]);
+            if (!classFilter.test(type))
+                continue;
+            classList.addDescriptor(type);
+            ClassData classData = classDataMap.get(i);
+            if (signatureFilter.test(type))
+                signatureList.add(getSignature(i, classData, throwsType, typeNameMap));
+        }
+    }
+
+    private ClassSignature getSignature(int classDef, ClassData classData, int throwsType, Map<Integer, String> typeNameMap) {
+        int superclass = classSuperclasses[classDef];
+        List<String> interfaces = typeNames(classInterfaceOffsets[classDef], typeNameMap);
+        List<String> fieldTypeList = new ArrayList<>();
+        List<ClassSignature.MethodSignature> methods = new ArrayList<>();
+        if (classData != null) {
+            for (int field : classData.fields)
+                fieldTypeList.add(typeName(fieldTypes[field], typeNameMap));
+            for (int i = 0; i < classData.methods.length; i++) {
+                int method = classData.methods[i];
+                int proto = methodProtos[method];
+                methods.add(new ClassSignature.MethodSignature(classData.methodAccessFlags[i],
+                        typeName(protoReturnTypes[proto], typeNameMap), typeNames(protoParameterOffsets[proto], typeNameMap),
+                        getExceptionCount(method, throwsType)));
+            }
+        }
+        return new ClassSignature(typeName(classTypes[classDef], typeNameMap), classAccessFlags[classDef],
+                superclass == NO_INDEX ? null : typeName(superclass, typeNameMap), interfaces, fieldTypeList, methods);
+    }
+
+    private int getExceptionCount(int method, int throwsType) {
+        Integer setOffset = methodAnnotationMap.get(method);
+        int[] annotationOffsets = setOffset == null ? null : annotationSetMap.get(setOffset);
+        if (annotationOffsets == null || throwsType == NO_INDEX)
+            return 0;
+        for (int annotationOffset : annotationOffsets) {
+            int[] annotation = annotationMap.get(annotationOffset);
+            if (annotation != null && annotation[0] == throwsType)
+                return annotation[1];
+        }
+        return 0;
+    }
+
+    private List<String> typeNames(int typeListOffset, Map<Integer, String> typeNameMap) {
+        int[] typeList = typeListOffset == 0 ? null : typeListMap.get(typeListOffset);
+        if (typeList == null || typeList.length == 0)
+            return Collections.emptyList();
+        List<String> list = new ArrayList<>(typeList.length);
+        for (int type : typeList)
+            list.add(typeName(type, typeNameMap));
+        return list;
+    }
+
+    /**
+     * 相同类型共用同一个字符串
+     */
+    private String typeName(int type, Map<Integer, String> typeNameMap) {
+        String name = typeNameMap.get(type);
+        if (name == null) {
+            name = ClassSignature.typeName(stringMap.get(typeStringIds[type]));
+            typeNameMap.put(type, name);
+        }
+        return name;
+    }
+
+    private interface ItemReader {
+        void read(Cursor cursor) throws IOException;
+    }
+
+    private static final class Request implements Comparable<Request> {
+        final int offset;
+        final ItemReader reader;
+
+        Request(int offset, ItemReader reader) {
+            this.offset = offset;
+            this.reader = reader;
+        }
+
+        @Override
+        public int compareTo(Request o) {
+            return Integer.compare(offset, o.offset);
+        }
+    }
+
+    private static final class ClassData {
+        final int[] fields;
+        final int[] methods;
+        final int[] methodAccessFlags;
+
+        ClassData(int fieldCount, int methodCount) {
+            fields = new int[fieldCount];
+            methods = new int[methodCount];
+            methodAccessFlags = new int[methodCount];
+        }
+    }
+
+    /**
+     * 只能向前移动的小端读取游标，跳过的内容也经过缓冲区，只有需要保留的区域另外分配内存
+     */
+    private final class Cursor {
+        private final InputStream inputStream;
+        private final byte[] buffer;
+        //跳过的内容是否按保留范围保留
+        private final boolean spilling;
+        private int position;
+        private int bufferPosition;
+        private int bufferLimit;
+
+        Cursor(InputStream inputStream, boolean spilling) {
+            this.inputStream = inputStream;
+            this.buffer = DexStreamReader.this.buffer;
+            this.spilling = spilling;
+        }
+
+        /**
+         * 在保留的区域上读取，读到区域末尾即报错
+         */
+        Cursor(byte[] spilled, int bufferPosition, int position) {
+            this.inputStream = new ByteArrayInputStream(new byte[0]);
+            this.buffer = spilled;
+            this.spilling = false;
+            this.position = position;
+            this.bufferPosition = bufferPosition;
+            this.bufferLimit = spilled.length;
+        }
+
+        int readUnsignedByte() throws IOException {
+            if (bufferPosition == bufferLimit)
+                fill();
+            position++;
+            return buffer[bufferPosition++] & 0xff;
+        }
+
+        private void fill() throws IOException {
+            bufferLimit = inputStream.read(buffer, 0, buffer.length);
+            bufferPosition = 0;
+            if (bufferLimit <= 0) {
+                bufferLimit = 0;
+                throw new IOException("unexpected end of dex at " + position);
+            }
+        }
+
+        int readUnsignedShort() throws IOException {
+            return readUnsignedByte() | readUnsignedByte() << 8;
+        }
+
+        int readInt() throws IOException {
+            return readUnsignedShort() | readUnsignedShort() << 16;
+        }
+
+        /**
+         * 读取表项数量，负数说明文件损坏
+         */
+        int readSize() throws IOException {
+            int size = readInt();
+            if (size < 0)
+                throw new IOException("bad size " + size + " at " + position);
+            return size;
+        }
+
+        int readUleb128() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readUnsignedByte();
+                result |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0)
+                    return result;
+            }
+            throw new IOException("bad uleb128 at " + position);
+        }
+
+        /**
+         * 字符串以utf16长度开头，内容为MUTF-8，以0结尾
+         */
+        String readMutf8() throws IOException {
+            char[] chars = new char[readUleb128()];
+            for (int i = 0; i < chars.length; i++) {
+                int a = readUnsignedByte();
+                if (a < 0x80) {
+                    chars[i] = (char) a;
+                } else if ((a & 0xe0) == 0xc0) {
+                    chars[i] = (char) ((a & 0x1f) << 6 | readUnsignedByte() & 0x3f);
+                } else if ((a & 0xf0) == 0xe0) {
+                    int b = readUnsignedByte();
+                    chars[i] = (char) ((a & 0x0f) << 12 | (b & 0x3f) << 6 | readUnsignedByte() & 0x3f);
+                } else
+                    throw new IOException("bad mutf-8 at " + position);
+            }
+            return new String(chars);
+        }
+
+        void skipTo(int offset) throws IOException {
+            while (position < offset) {
+                int end = spilling ? Math.min(offset, nextSpillBoundary(position)) : offset;
+                if (spilling && isSpilled(position) && spillSize + end - position <= SPILL_LIMIT)
+                    spill(end);
+                else
+                    skip(end);
+            }
+        }
+
+        private void skip(int offset) throws IOException {
+            while (position < offset) {
+                if (bufferPosition == bufferLimit)
+                    fill();
+                int skip = Math.min(bufferLimit - bufferPosition, offset - position);
+                bufferPosition += skip;
+                position += skip;
+            }
+        }
+
+        /**
+         * 跳过的同时复制下来
+         */
+        private void spill(int offset) throws IOException {
+            byte[] spilled = new byte[offset - position];
+            spillMap.put(position, spilled);
+            spillSize += spilled.length;
+            for (int i = 0; i < spilled.length; ) {
+                if (bufferPosition == bufferLimit)
+                    fill();
+                int count = Math.min(bufferLimit - bufferPosition, spilled.length - i);
+                System.arraycopy(buffer, bufferPosition, spilled, i, count);
+                bufferPosition += count;
+                position += count;
+                i += count;
+            }
+        }
+    }
+
+    /**
+     * 内存映射区域上的输入流。nowrap模式的Inflater在数据末尾需要多一个填充字节
+     */
+    private static final class MappedInputStream extends InputStream {
+        private final ByteBuffer byteBuffer;
+        private boolean padding;
+
+        MappedInputStream(ByteBuffer byteBuffer, boolean padding) {
+            this.byteBuffer = byteBuffer;
+            this.padding = padding;
+        }
+
+        @Override
+        public int read() {
+            if (byteBuffer.hasRemaining())
+                return byteBuffer.get() & 0xff;
+            if (padding) {
+                padding = false;
+                return 0;
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!byteBuffer.hasRemaining()) {
+                if (!padding)
+                    return -1;
+                padding = false;
+                b[off] = 0;
+                return 1;
+            }
+            int count = Math.min(len, byteBuffer.remaining());
+            byteBuffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return byteBuffer.remaining();
+        }
+    }
+}
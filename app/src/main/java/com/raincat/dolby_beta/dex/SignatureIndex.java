@@ -0,0 +1,200 @@
+package com.raincat.dolby_beta.dex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 类结构特征索引
+ *     version: 1.0
+ * </pre>
+ * 文件格式（大端）：
+ * <pre>
+ *     header : magic(4) formatVersion(4) hostVersion(4)
+ *     strings: count(4) + count * UTF，所有类名、类型名只存一次，以下用序号引用
+ *     classes: count(4) + count * (name(4) accessFlags(4) superclass(4，-1为无)
+ *              interfaceCount(4) interfaces fieldCount(4) fieldTypes
+ *              methodCount(4) methodCount * (accessFlags(4) returnType(4) parameterCount(4) parameterTypes exceptionCount(4)))
+ *     crc32  : 以上所有字节的CRC32(4)
+ * </pre>
+ */
+public final class SignatureIndex {
+    private static final int MAGIC = 0x44425349;
+    private static final int FORMAT_VERSION = 1;
+
+    private final int version;
+    private final Map<String, ClassSignature> signatures;
+
+    private SignatureIndex(int version, Map<String, ClassSignature> signatures) {
+        this.version = version;
+        this.signatures = signatures;
+    }
+
+    public static SignatureIndex build(int version, Collection<ClassSignature> signatureList) {
+        Map<String, ClassSignature> signatures = new HashMap<>(signatureList.size() * 2);
+        for (ClassSignature signature : signatureList)
+            signatures.put(signature.getName(), signature);
+        return new SignatureIndex(version, signatures);
+    }
+
+    /**
+     * 读取索引文件，文件不存在、损坏或版本不符时返回null
+     */
+    public static SignatureIndex open(File file, int version) {
+        if (!file.isFile())
+            return null;
+        CRC32 crc32 = new CRC32();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            DataInputStream input = new DataInputStream(new CheckedInputStream(inputStream, crc32));
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || input.readInt() != version)
+                return null;
+            String[] strings = new String[input.readInt()];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = input.readUTF();
+            int classCount = input.readInt();
+            Map<String, ClassSignature> signatures = new HashMap<>(classCount * 2);
+            for (int i = 0; i < classCount; i++) {
+                String name = strings[input.readInt()];
+                int accessFlags = input.readInt();
+                int superclass = input.readInt();
+                List<String> interfaces = readStrings(input, strings);
+                List<String> fieldTypes = readStrings(input, strings);
+                List<ClassSignature.MethodSignature> methods = new ArrayList<>();
+                int methodCount = input.readInt();
+                for (int j = 0; j < methodCount; j++) {
+                    int methodAccessFlags = input.readInt();
+                    String returnType = strings[input.readInt()];
+                    List<String> parameterTypes = readStrings(input, strings);
+                    methods.add(new ClassSignature.MethodSignature(methodAccessFlags, returnType, parameterTypes, input.readInt()));
+                }
+                signatures.put(name, new ClassSignature(name, accessFlags, superclass < 0 ? null : strings[superclass],
+                        interfaces, fieldTypes, methods));
+            }
+            int checksum = (int) crc32.getValue();
+            if (new DataInputStream(inputStream).readInt() != checksum || inputStream.read() != -1)
+                return null;
+            return new SignatureIndex(version, signatures);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream input, String[] strings) throws IOException {
+        int count = input.readInt();
+        if (count == 0)
+            return Collections.emptyList();
+        List<String> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            list.add(strings[input.readInt()]);
+        return list;
+    }
+
+    /**
+     * 先写入临时文件再重命名
+     */
+    public void writeTo(File file) throws IOException {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (ClassSignature signature : signatures.values()) {
+            addString(signature.getName(), stringIds, strings);
+            if (signature.getSuperclass() != null)
+                addString(signature.getSuperclass(), stringIds, strings);
+            for (String type : signature.getInterfaces())
+                addString(type, stringIds, strings);
+            for (String type : signature.getFieldTypes())
+                addString(type, stringIds, strings);
+            for (ClassSignature.MethodSignature method : signature.getMethods()) {
+                addString(method.getReturnType(), stringIds, strings);
+                for (String type : method.getParameterTypes())
+                    addString(type, stringIds, strings);
+            }
+        }
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        CRC32 crc32 = new CRC32();
+        try (FileOutputStream fileOutputStream = new FileOutputStream(tmpFile, false)) {
+            BufferedOutputStream outputStream = new BufferedOutputStream(fileOutputStream);
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(outputStream, crc32));
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(version);
+            output.writeInt(strings.size());
+            for (String string : strings)
+                output.writeUTF(string);
+            output.writeInt(signatures.size());
+            for (ClassSignature signature : signatures.values()) {
+                output.writeInt(stringIds.get(signature.getName()));
+                output.writeInt(signature.getAccessFlags());
+                output.writeInt(signature.getSuperclass() == null ? -1 : stringIds.get(signature.getSuperclass()));
+                writeStrings(output, signature.getInterfaces(), stringIds);
+                writeStrings(output, signature.getFieldTypes(), stringIds);
+                output.writeInt(signature.getMethods().size());
+                for (ClassSignature.MethodSignature method : signature.getMethods()) {
+                    output.writeInt(method.getAccessFlags());
+                    output.writeInt(stringIds.get(method.getReturnType()));
+                    writeStrings(output, method.getParameterTypes(), stringIds);
+                    output.writeInt(method.getExceptionCount());
+                }
+            }
+            output.flush();
+            new DataOutputStream(outputStream).writeInt((int) crc32.getValue());
+            outputStream.flush();
+            fileOutputStream.getFD().sync();
+        }
+        if (!tmpFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            throw new IOException("rename " + tmpFile + " failed");
+        }
+    }
+
+    private static void addString(String string, Map<String, Integer> stringIds, List<String> strings) {
+        if (!stringIds.containsKey(string)) {
+            stringIds.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream output, List<String> list, Map<String, Integer> stringIds) throws IOException {
+        output.writeInt(list.size());
+        for (String string : list)
+            output.writeInt(stringIds.get(string));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    public Collection<ClassSignature> getSignatures() {
+        return Collections.unmodifiableCollection(signatures.values());
+    }
+
+    /**
+     * 未记录的类返回null
+     */
+    public ClassSignature get(String name) {
+        return signatures.get(name);
+    }
+}
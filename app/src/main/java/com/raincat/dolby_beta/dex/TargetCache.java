@@ -0,0 +1,313 @@
+package com.raincat.dolby_beta.dex;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 已解析Hook目标缓存
+ *     version: 1.0
+ * </pre>
+ * 每个宿主版本一个文件，保存各查找结果最终解析出的类、方法、字段名：
+ * <pre>
+ *     类  : com.netease.cloudmusic.network.a.b.c
+ *     方法: com.netease.cloudmusic.network.a.b.c#a(java.lang.String,int)java.lang.Object
+ *     字段: com.netease.cloudmusic.network.a.b.c#b:java.util.LinkedHashMap
+ * </pre>
+ * 多个方法以“|”分隔。按正则查找的类还会以“fingerprint.”加键名记录其结构指纹，宿主更新后用来辨认改名后的类。
+ * 读取时每项只做一次查找校验，校验失败的条目会被删除，由调用方重新完整解析。
+ * file为null时只在内存中缓存，不落盘。主进程写入的缓存文件由play进程以快照方式只读加载。
+ * 修改只标记为待写入，由后台线程延迟SAVE_DELAY合并写一次文件，一批查找完成后也可调用flush()立即写入，
+ * 解析目标的线程不会为每个条目各写一次文件。
+ */
+public final class TargetCache {
+    private static final String METHOD_SEPARATOR = "|";
+    private static final String FINGERPRINT_PREFIX = "fingerprint.";
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+    //合并写入的延迟
+    private static final long SAVE_DELAY = 2000;
+    private static final ScheduledExecutorService saveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "DolbyBeta-TargetCacheSave");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    static {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class})
+            PRIMITIVE_TYPES.put(type.getName(), type);
+    }
+
+    private final File file;
+    private final ClassLoader classLoader;
+    private final Properties properties = new Properties();
+    //同一进程内只有一个线程写文件，临时文件不会被同时写入
+    private final Object writeLock = new Object();
+    //有尚未写入文件的修改
+    private boolean dirty = false;
+
+    private TargetCache(File file, ClassLoader classLoader) {
+        this.file = file;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * 读取缓存文件，文件不存在时得到一个空缓存
+     */
+    public static TargetCache load(File file, ClassLoader classLoader) {
+        TargetCache targetCache = new TargetCache(file, classLoader);
+        if (file != null && file.isFile()) {
+            try (InputStream inputStream = new FileInputStream(file)) {
+                targetCache.properties.load(inputStream);
+            } catch (IOException | IllegalArgumentException e) {
+                XposedBridge.log("DolbyBeta: load target cache " + file.getName() + " failed: " + e);
+                targetCache.properties.clear();
+            }
+        }
+        return targetCache;
+    }
+
+    /**
+     * 读取其他进程发布的缓存，之后的增删只保存在内存中，不写回文件
+     */
+    public static TargetCache loadSnapshot(File file, ClassLoader classLoader) {
+        TargetCache targetCache = load(file, classLoader);
+        TargetCache snapshot = new TargetCache(null, classLoader);
+        snapshot.properties.putAll(targetCache.properties);
+        return snapshot;
+    }
+
+    public Class<?> getClass(String key) {
+        String value = properties.getProperty(key);
+        if (value == null)
+            return null;
+        Class<?> clazz = findType(value);
+        if (clazz == null)
+            remove(key);
+        return clazz;
+    }
+
+    /**
+     * 只读取记录的类名，不加载类也不校验，用于读取上个宿主版本的缓存
+     */
+    public String getClassName(String key) {
+        return properties.getProperty(key);
+    }
+
+    public String getFingerprint(String key) {
+        return properties.getProperty(FINGERPRINT_PREFIX + key);
+    }
+
+    public Method getMethod(String key) {
+        List<Method> methods = getMethods(key);
+        return methods == null || methods.size() != 1 ? null : methods.get(0);
+    }
+
+    /**
+     * 任一方法校验失败整组作废
+     */
+    public List<Method> getMethods(String key) {
+        String value = properties.getProperty(key);
+        if (value == null)
+            return null;
+        List<Method> methods = new ArrayList<>();
+        for (String descriptor : value.split("\\" + METHOD_SEPARATOR)) {
+            if (descriptor.isEmpty())
+                continue;
+            Method method = findMethod(descriptor);
+            if (method == null) {
+                remove(key);
+                return null;
+            }
+            methods.add(method);
+        }
+        return methods;
+    }
+
+    public Field getField(String key) {
+        String value = properties.getProperty(key);
+        if (value == null)
+            return null;
+        Field field = findField(value);
+        if (field == null)
+            remove(key);
+        return field;
+    }
+
+    public void putClass(String key, Class<?> clazz) {
+        if (clazz != null)
+            put(key, clazz.getName());
+    }
+
+    /**
+     * 同时记录类的结构指纹，只写一次文件
+     */
+    public synchronized void putClass(String key, Class<?> clazz, String fingerprint) {
+        if (clazz == null)
+            return;
+        if (fingerprint == null) {
+            putClass(key, clazz);
+            return;
+        }
+        if (clazz.getName().equals(properties.getProperty(key)) && fingerprint.equals(getFingerprint(key)))
+            return;
+        properties.setProperty(key, clazz.getName());
+        properties.setProperty(FINGERPRINT_PREFIX + key, fingerprint);
+        save();
+    }
+
+    public void putMethod(String key, Method method) {
+        if (method != null)
+            put(key, describe(method));
+    }
+
+    public void putMethods(String key, List<Method> methods) {
+        if (methods == null)
+            return;
+        StringBuilder builder = new StringBuilder();
+        for (Method method : methods) {
+            if (builder.length() != 0)
+                builder.append(METHOD_SEPARATOR);
+            builder.append(describe(method));
+        }
+        put(key, builder.toString());
+    }
+
+    public void putField(String key, Field field) {
+        if (field != null)
+            put(key, field.getDeclaringClass().getName() + "#" + field.getName() + ":" + field.getType().getName());
+    }
+
+    private static String describe(Method method) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(method.getDeclaringClass().getName()).append('#').append(method.getName()).append('(');
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i != 0)
+                builder.append(',');
+            builder.append(parameterTypes[i].getName());
+        }
+        return builder.append(')').append(method.getReturnType().getName()).toString();
+    }
+
+    private Method findMethod(String descriptor) {
+        int nameStart = descriptor.indexOf('#');
+        int parameterStart = descriptor.indexOf('(', nameStart);
+        int parameterEnd = descriptor.indexOf(')', parameterStart);
+        if (nameStart <= 0 || parameterStart < 0 || parameterEnd < 0)
+            return null;
+        Class<?> clazz = findType(descriptor.substring(0, nameStart));
+        if (clazz == null)
+            return null;
+        String parameters = descriptor.substring(parameterStart + 1, parameterEnd);
+        String[] parameterNames = parameters.isEmpty() ? new String[0] : parameters.split(",");
+        Class<?>[] parameterTypes = new Class<?>[parameterNames.length];
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameterTypes[i] = findType(parameterNames[i]);
+            if (parameterTypes[i] == null)
+                return null;
+        }
+        try {
+            Method method = clazz.getDeclaredMethod(descriptor.substring(nameStart + 1, parameterStart), parameterTypes);
+            return method.getReturnType().getName().equals(descriptor.substring(parameterEnd + 1)) ? method : null;
+        } catch (NoSuchMethodException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private Field findField(String descriptor) {
+        int nameStart = descriptor.indexOf('#');
+        int typeStart = descriptor.indexOf(':', nameStart);
+        if (nameStart <= 0 || typeStart < 0)
+            return null;
+        Class<?> clazz = findType(descriptor.substring(0, nameStart));
+        if (clazz == null)
+            return null;
+        try {
+            Field field = clazz.getDeclaredField(descriptor.substring(nameStart + 1, typeStart));
+            return field.getType().getName().equals(descriptor.substring(typeStart + 1)) ? field : null;
+        } catch (NoSuchFieldException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 只加载不初始化
+     */
+    private Class<?> findType(String name) {
+        Class<?> type = PRIMITIVE_TYPES.get(name);
+        if (type != null)
+            return type;
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private synchronized void put(String key, String value) {
+        if (value.equals(properties.getProperty(key)))
+            return;
+        properties.setProperty(key, value);
+        save();
+    }
+
+    private synchronized void remove(String key) {
+        if (properties.remove(key) != null)
+            save();
+    }
+
+    /**
+     * 在锁内调用，只标记待写入，第一次标记时安排一次延迟写入
+     */
+    private void save() {
+        if (file == null || dirty)
+            return;
+        dirty = true;
+        saveExecutor.schedule(this::flush, SAVE_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 把待写入的修改立即写入文件，没有修改时直接返回。先写入临时文件再重命名
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            Properties copy;
+            synchronized (this) {
+                if (!dirty)
+                    return;
+                dirty = false;
+                copy = new Properties();
+                copy.putAll(properties);
+            }
+            File tmpFile = new File(file.getPath() + ".tmp");
+            try (FileOutputStream outputStream = new FileOutputStream(tmpFile, false)) {
+                copy.store(outputStream, null);
+                outputStream.getFD().sync();
+            } catch (IOException e) {
+                XposedBridge.log("DolbyBeta: save target cache " + file.getName() + " failed: " + e);
+                return;
+            }
+            if (!tmpFile.renameTo(file))
+                //noinspection ResultOfMethodCallIgnored
+                tmpFile.delete();
+        }
+    }
+}
@@ -4,36 +4,69 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.net.Uri;
+import android.os.FileObserver;
 
 
 import com.annimon.stream.Stream;
 
+import com.annimon.stream.function.Function;
+import com.annimon.stream.function.Predicate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.raincat.dolby_beta.dex.ApkFingerprint;
+import com.raincat.dolby_beta.dex.ClassIndex;
+import com.raincat.dolby_beta.dex.ClassNameArena;
+import com.raincat.dolby_beta.dex.ClassSignature;
+import com.raincat.dolby_beta.dex.DexStreamReader;
+import com.raincat.dolby_beta.dex.SignatureIndex;
+import com.raincat.dolby_beta.dex.TargetCache;
 import com.raincat.dolby_beta.utils.Tools;
-import org.jf.dexlib2.DexFileFactory;
-import org.jf.dexlib2.dexbacked.DexBackedClassDef;
-import org.jf.dexlib2.dexbacked.DexBackedDexFile;
-import org.jf.dexlib2.iface.MultiDexContainer;
 import org.json.JSONObject;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import de.robv.android.xposed.XposedBridge;
 import de.robv.android.xposed.XposedHelpers;
@@ -55,87 +88,713 @@ import static de.robv.android.xposed.XposedHelpers.findMethodsByExactParameters;
 public class ClassHelper {
     //类加载器
     private static ClassLoader classLoader = null;
-    //dex缓存
-    private static List<String> classCacheList = null;
+    //当前的索引快照，类名索引、结构特征与正则过滤结果整体发布，读取时不加锁；未就绪或已释放时为null
+    private static final AtomicReference<IndexSnapshot> indexSnapshot = new AtomicReference<>();
+    //索引第一次就绪时完成
+    private static final SettableFuture<Boolean> indexReadyFuture = SettableFuture.create();
+    //扫描dex时持有，不占用ClassHelper的类锁，扫描期间其他线程照常读取与查找
+    private static final Object scanLock = new Object();
+    private static final ClassIndex EMPTY_INDEX = ClassIndex.build(0, Collections.<String>emptyList());
+    //索引所在的文件，释放后据此重新映射；索引没有落盘时为null，不释放
+    private static File classIndexSource = null, signatureIndexSource = null;
+    private static int indexSourceVersion = 0;
+    //索引是否已在解析完成后释放
+    private static volatile boolean indexReleased = false;
+    private static volatile long lastLookupTime = 0;
+    private static boolean indexReleaseScheduled = false;
     //dex缓存路径
     private static String classCachePath = null;
+    //与play进程共享的索引目录，位于应用私有files目录下
+    private static String sharePath = null;
+    //play进程等待主进程发布索引
+    private static FileObserver shareObserver = null;
+    //apk指纹，作为缓存键
+    private static ApkFingerprint apkFingerprint = null;
+    //已解析的Hook目标缓存
+    private static volatile TargetCache targetCache = null;
+    //上个宿主版本的目标缓存，只读，宿主更新后用于推测解析
+    private static volatile TargetCache previousTargets = null;
     //网易云版本
     private static int versionCode = 0;
-    // 保存 Context 用于后续全量加载
-    private static Context mContext;
-    // 标记是否已经全量加载
-    private static boolean isFullLoaded = false;
+    private static final String SHARE_DIR = "dolby_share";
+    private static final String LOCK_FILE = "index.lock";
+    private static final String PREVIOUS_TARGET_FILE = "target-previous";
+    //推测解析最多试探的类数量
+    private static final int PROBE_LIMIT = 8;
+    //兜底查找的时间与类数量上限
+    private static final long FALLBACK_TIME_LIMIT = 5000;
+    private static final int FALLBACK_CLASS_LIMIT = 5000;
+    private static final int FALLBACK_BATCH_SIZE = 100;
+    private static final ListeningExecutorService fallbackExecutor = MoreExecutors.listeningDecorator(
+            Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("DolbyBeta-ClassFallback")
+                    .setDaemon(true)
+                    .setPriority(Thread.MIN_PRIORITY)
+                    .build()));
+    //候选类较多时分块并行做结构匹配，线程数随核心数增加，最多8个
+    private static final int MATCH_PARALLELISM = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final int MATCH_CHUNK_SIZE = 32;
+    //查找全部完成且索引空闲超过该时间后释放索引
+    private static final long INDEX_IDLE_TIME = 60 * 1000;
+    //同步取类时最多等待的时间，超时按找不到处理
+    private static final long CLASS_WAIT_TIME = 3000;
+    //取Cookie时可以等兜底查找完成
+    private static final long COOKIE_WAIT_TIME = FALLBACK_TIME_LIMIT + CLASS_WAIT_TIME;
+    private static final ScheduledExecutorService indexReleaseExecutor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("DolbyBeta-IndexRelease")
+                    .setDaemon(true)
+                    .setPriority(Thread.MIN_PRIORITY)
+                    .build());
+    private static final ExecutorService matchExecutor = Executors.newFixedThreadPool(MATCH_PARALLELISM,
+            new ThreadFactoryBuilder()
+                    .setNameFormat("DolbyBeta-ClassMatch-%d")
+                    .setDaemon(true)
+                    .build());
+    //反射元数据缓存，以Class为弱键；值引用着Field、Method，会反过来强引用Class，所以用软引用保存，内存紧张时可回收
+    private static final LoadingCache<Class<?>, ClassMeta> classMetaCache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .softValues()
+            .build(CacheLoader.from(ClassMeta::new));
+    //各类的查找结果
+    private static final Map<String, ListenableFuture<Class<?>>> classFutureMap = new ConcurrentHashMap<>();
+
+    private static void init(Context context, int version) {
+        classLoader = context.getClassLoader();
+        versionCode = version;
+        File cacheFile = Objects.requireNonNull(context.getExternalFilesDir(null));
+        if (cacheFile.exists() || cacheFile.mkdirs())
+            classCachePath = cacheFile.getPath();
+        File shareFile = new File(context.getFilesDir(), SHARE_DIR);
+        if (shareFile.exists() || shareFile.mkdirs())
+            sharePath = shareFile.getPath();
+        try {
+            apkFingerprint = ApkFingerprint.read(new File(context.getPackageResourcePath()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
     public static synchronized void getCacheClassList(final Context context, final int version, final OnCacheClassListener listener) {
-        mContext = context;
         if (classLoader == null) {
-            classLoader = context.getClassLoader();
-            versionCode = version;
-            File cacheFile = Objects.requireNonNull(context.getExternalFilesDir(null));
-            if (cacheFile.exists() || cacheFile.mkdirs())
-                classCachePath = cacheFile.getPath();
-        }
-        if (classCacheList == null) {
-            if (SettingHelper.getInstance().isEnable(SettingHelper.dex_key))
-                classCacheList = FileHelper.readFileFromSD(classCachePath + File.separator + "class-" + version);
-            else
-                classCacheList = new ArrayList<>();
-            if (classCacheList.size() == 0) {
-                // 默认仅加载网易云和okhttp相关类
-                new Thread(() -> getCacheClassByZip(context, version, listener, true)).start();
-            } else
-                listener.onGet();
+            init(context, version);
+            // 目标缓存放在共享目录，play进程也能读到；不使用dex缓存时每次启动重新解析
+            File targetFile = getShareTargetFile();
+            if (!SettingHelper.getInstance().isEnable(SettingHelper.dex_key))
+                FileHelper.deleteFile(targetFile.getPath());
+            loadPreviousTargets();
+            targetCache = TargetCache.load(targetFile, classLoader);
+        }
+        if (indexSnapshot.get() == null) {
+            final boolean saveCache = SettingHelper.getInstance().isEnable(SettingHelper.dex_key);
+            if (!saveCache || !openClassIndex(version)) {
+                new Thread(() -> {
+                    long startTime = System.currentTimeMillis();
+                    // 其他进程正在后台预建时等待其完成，直接使用预建的索引与目标缓存
+                    FileLock lock = lockIndex(true);
+                    try {
+                        if (saveCache && openClassIndex(version)) {
+                            targetCache = TargetCache.load(getShareTargetFile(), classLoader);
+                            recordFirstLaunch("wait " + (System.currentTimeMillis() - startTime) + "ms");
+                            onIndexReady(listener);
+                        } else {
+                            getCacheClassByZip(context, version, listener, true, false);
+                            recordFirstLaunch("scan " + (System.currentTimeMillis() - startTime) + "ms");
+                        }
+                    } finally {
+                        releaseIndexLock(lock);
+                    }
+                }).start();
+            } else {
+                final IndexSnapshot snapshot = indexSnapshot.get();
+                new Thread(() -> {
+                    if (!getShareClassIndexFile().isFile())
+                        publishSharedIndex(snapshot.classIndex, snapshot.signatureIndex);
+                    recordFirstLaunch("ready");
+                }).start();
+                onIndexReady(listener);
+            }
         } else
             listener.onGet();
     }
 
-    private static synchronized void getCacheClassByZip(Context context, int version, OnCacheClassListener listener, boolean loadAll) {
+    private static synchronized boolean openClassIndex(int version) {
+        if (indexSnapshot.get() == null) {
+            ClassIndex index = ClassIndex.open(getClassIndexFile(), version);
+            if (index != null) {
+                setIndexSource(getClassIndexFile(), getSignatureIndexFile(), version);
+                indexSnapshot.set(new IndexSnapshot(index, SignatureIndex.open(getSignatureIndexFile(), version), null));
+            }
+        }
+        return indexSnapshot.get() != null;
+    }
+
+    /**
+     * 宿主更新后，任意进程启动时都在后台以低优先级预建索引并解析Hook目标，
+     * 使更新后第一次打开网易云时索引已经就绪。以apk指纹判断宿主是否更新，进度与耗时记录在ExtraHelper中
+     *
+     * @param listener 本进程建好索引并解析完目标后回调，可为null
+     * @return 是否由本进程开始预建
+     */
+    public static synchronized boolean precomputeIfUpdated(final Context context, final int version, final OnCacheClassListener listener) {
+        if (!SettingHelper.getInstance().isEnable(SettingHelper.dex_key) || indexSnapshot.get() != null || indexReleased)
+            return false;
+        if (classLoader == null)
+            init(context, version);
+        if (classCachePath == null || sharePath == null)
+            return false;
+        final String key = getCacheKey();
+        if (key.equals(ExtraHelper.getExtraDate(ExtraHelper.HOST_KEY)))
+            return false;
+        if (getClassIndexFile().isFile()) {
+            ExtraHelper.setExtraDate(ExtraHelper.HOST_KEY, key);
+            return false;
+        }
+        // 其他进程正在构建
+        final FileLock lock = lockIndex(false);
+        if (lock == null)
+            return false;
+        if (targetCache == null) {
+            loadPreviousTargets();
+            targetCache = TargetCache.load(getShareTargetFile(), classLoader);
+        }
+        final String processName = Tools.getCurrentProcessName(context);
+        Thread thread = new Thread(() -> {
+            android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+            final long startTime = System.currentTimeMillis();
+            ExtraHelper.setExtraDate(ExtraHelper.PRECOMPUTE_STATUS, key + " " + processName + " scanning");
+            XposedBridge.log("DolbyBeta: host updated, precomputing class index in " + processName);
+            try {
+                getCacheClassByZip(context, version, () -> {
+                    final long scanTime = System.currentTimeMillis() - startTime;
+                    ExtraHelper.setExtraDate(ExtraHelper.PRECOMPUTE_STATUS, key + " " + processName + " resolving");
+                    final ListenableFuture<List<Class<?>>> future = resolveTargets(context);
+                    future.addListener(() -> {
+                        flushTargetCache();
+                        long resolveTime = System.currentTimeMillis() - startTime - scanTime;
+                        // 只有所有dex都读取成功并写好索引时索引文件才存在
+                        boolean complete = getClassIndexFile().isFile();
+                        ExtraHelper.setExtraDate(ExtraHelper.PRECOMPUTE_TIME, key + " scan=" + scanTime + "ms resolve=" + resolveTime + "ms");
+                        ExtraHelper.setExtraDate(ExtraHelper.PRECOMPUTE_STATUS, key + " " + processName + (complete ? " done" : " failed"));
+                        if (complete)
+                            ExtraHelper.setExtraDate(ExtraHelper.HOST_KEY, key);
+                        XposedBridge.log("DolbyBeta: precompute " + (complete ? "done" : "failed") + ", scan " + scanTime + "ms, resolve " + resolveTime + "ms");
+                        if (listener != null)
+                            listener.onGet();
+                    }, MoreExecutors.directExecutor());
+                }, true, true);
+            } finally {
+                releaseIndexLock(lock);
+            }
+        }, "DolbyBeta-Precompute");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * 解析所有按正则查找的Hook目标，结果写入目标缓存
+     */
+    private static ListenableFuture<List<Class<?>>> resolveTargets(Context context) {
+        List<ListenableFuture<Class<?>>> futureList = Arrays.asList(
+                BottomTabView.getClazzAsync(context), SidebarItem.getClazzAsync(context),
+                CommentDataClass.getClazzAsync(), Ad.getClazzAsync(),
+                OKHttp3Response.getClazzAsync(context), OKHttp3Header.getClazzAsync(context),
+                HttpResponse.getClazzAsync(context), HttpUrl.getClazzAsync(context),
+                HttpParams.getClazzAsync(context), HttpInterceptor.getClazzAsync(context));
+        return Futures.successfulAsList(futureList);
+    }
+
+    /**
+     * 每个宿主版本只记录主进程第一次启动时索引的来源与耗时
+     */
+    private static void recordFirstLaunch(String status) {
+        String key = getCacheKey();
+        if (ExtraHelper.getExtraDate(ExtraHelper.FIRST_LAUNCH).startsWith(key + " "))
+            return;
+        ExtraHelper.setExtraDate(ExtraHelper.FIRST_LAUNCH, key + " " + status);
+        XposedBridge.log("DolbyBeta: first launch of " + key + ": " + status);
+    }
+
+    /**
+     * 跨进程的索引构建锁，防止主进程与后台预建同时扫描。
+     * wait为false时锁已被其他进程持有则返回null
+     */
+    private static FileLock lockIndex(boolean wait) {
+        if (sharePath == null)
+            return null;
+        FileChannel channel = null;
         try {
-            // 不用 ZipDexContainer 因为会验证zip里面的文件是不是dex，会慢一点
-            File appInstallFile = new File(context.getPackageResourcePath());
-            Enumeration<? extends ZipEntry> zip = new ZipFile(appInstallFile).entries();
-            while (zip.hasMoreElements()) {
-                ZipEntry dexInZip = zip.nextElement();
-                if (dexInZip.getName().startsWith("classes") && dexInZip.getName().endsWith(".dex")) {
-                    MultiDexContainer.DexEntry<? extends DexBackedDexFile> dexEntry = DexFileFactory.loadDexEntry(appInstallFile, dexInZip.getName(), true, null);
-                    DexBackedDexFile dexFile = dexEntry.getDexFile();
-                    for (DexBackedClassDef classDef : dexFile.getClasses()) {
-                        String classType = classDef.getType();
-                        boolean shouldAdd = false;
-
-                        if (loadAll) {
-                            // 全量模式：排除系统类
-                            if (!classType.startsWith("Landroid") &&
-                                !classType.startsWith("Ljava") &&
-                                !classType.startsWith("Ljavax") &&
-                                !classType.startsWith("Lkotlin") &&
-                                !classType.startsWith("Landroidx")) {
-                                shouldAdd = true;
-                            }
-                        } else {
-                            // 默认模式：仅包含核心包名
-                            if (classType.contains("com/netease/cloudmusic") || classType.contains("okhttp3")) {
-                                shouldAdd = true;
-                            }
-                        }
+            channel = new RandomAccessFile(new File(sharePath, LOCK_FILE), "rw").getChannel();
+            FileLock lock = wait ? channel.lock() : channel.tryLock();
+            if (lock != null)
+                return lock;
+        } catch (IOException | OverlappingFileLockException e) {
+            e.printStackTrace();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+        return null;
+    }
 
-                        if (shouldAdd) {
-                            classType = classType.substring(1, classType.length() - 1).replace("/", ".");
-                            classCacheList.add(classType);
-                        }
-                    }
+    private static void releaseIndexLock(FileLock lock) {
+        if (lock == null)
+            return;
+        try {
+            lock.channel().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * play进程直接内存映射主进程发布的索引与目标缓存，不再自己扫描dex。
+     * 主进程尚未发布时监听共享目录，索引出现后再回调
+     */
+    public static synchronized void attachSharedIndex(final Context context, final int version, final OnCacheClassListener listener) {
+        if (classLoader == null)
+            init(context, version);
+        if (openSharedIndex()) {
+            onIndexReady(listener);
+            return;
+        }
+        // 宿主更新后play进程先于主进程启动时，由play进程自己预建
+        if (precomputeIfUpdated(context, version, listener))
+            return;
+        if (sharePath == null || shareObserver != null)
+            return;
+        final String indexName = getShareClassIndexFile().getName();
+        shareObserver = new FileObserver(sharePath, FileObserver.MOVED_TO | FileObserver.CLOSE_WRITE) {
+            @Override
+            public void onEvent(int event, String path) {
+                if (indexName.equals(path) && openSharedIndex()) {
+                    stopWatching();
+                    onIndexReady(listener);
                 }
             }
+        };
+        shareObserver.startWatching();
+        // 开始监听之前可能已经发布
+        if (openSharedIndex()) {
+            shareObserver.stopWatching();
+            onIndexReady(listener);
+        }
+    }
+
+    /**
+     * 只有第一次成功打开时返回true，保证回调只执行一次
+     */
+    private static synchronized boolean openSharedIndex() {
+        if (indexSnapshot.get() != null || indexReleased || sharePath == null)
+            return false;
+        ClassIndex index = ClassIndex.open(getShareClassIndexFile(), versionCode);
+        if (index == null)
+            return false;
+        SignatureIndex signature = SignatureIndex.open(getShareSignatureIndexFile(), versionCode);
+        targetCache = TargetCache.loadSnapshot(getShareTargetFile(), classLoader);
+        setIndexSource(getShareClassIndexFile(), getShareSignatureIndexFile(), versionCode);
+        indexSnapshot.set(new IndexSnapshot(index, signature, null));
+        return true;
+    }
+
+    /**
+     * 扫描期间只持有scanLock，新索引在落盘并映射后才作为快照发布
+     *
+     * @param lowPriority 后台预建时只用一个低优先级线程解析
+     */
+    private static void getCacheClassByZip(Context context, int version, OnCacheClassListener listener, boolean loadAll,
+                                           boolean lowPriority) {
+        synchronized (scanLock) {
+            scanDex(context, version, loadAll, lowPriority);
+        }
+        onIndexReady(listener);
+    }
+
+    private static void scanDex(Context context, int version, boolean loadAll, boolean lowPriority) {
+        ClassNameArena classList = new ClassNameArena();
+        List<ClassSignature> signatureList = new ArrayList<>();
+        boolean saveCache = SettingHelper.getInstance().isEnable(SettingHelper.dex_key);
+        //所有dex都读取成功
+        boolean complete = false;
+        ForkJoinPool pool = null;
+        try {
+            File appInstallFile = new File(context.getPackageResourcePath());
+            ApkFingerprint fingerprint = apkFingerprint != null ? apkFingerprint : ApkFingerprint.read(appInstallFile);
+            // 内容没变的dex直接读取上次的扫描结果，其余每个dex一个任务并行解析
+            List<DexScanResult> resultList = new ArrayList<>();
+            List<DexScanTask> taskList = new ArrayList<>();
+            for (String dexName : fingerprint.getDexNameList()) {
+                DexScanResult result = saveCache && loadAll ? readDexScanResult(fingerprint, dexName) : null;
+                if (result == null) {
+                    DexScanTask task = new DexScanTask(appInstallFile, dexName, loadAll);
+                    taskList.add(task);
+                    resultList.add(null);
+                } else
+                    resultList.add(result);
+            }
+            if (!taskList.isEmpty()) {
+                if (lowPriority)
+                    pool = new ForkJoinPool(1, forkJoinPool -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }, null, false);
+                else {
+                    int parallelism = Math.max(1, Math.min(taskList.size(), Runtime.getRuntime().availableProcessors()));
+                    pool = new ForkJoinPool(parallelism);
+                }
+                for (DexScanTask task : taskList)
+                    pool.execute(task);
+            }
+            // 按dex序号合并保证结果顺序与单线程一致
+            complete = true;
+            int taskIndex = 0;
+            for (int i = 0; i < resultList.size(); i++) {
+                DexScanResult result = resultList.get(i);
+                if (result == null) {
+                    DexScanTask task = taskList.get(taskIndex++);
+                    result = task.join();
+                    if (saveCache && loadAll && result.complete)
+                        saveDexScanResult(fingerprint, task.dexName, result);
+                    complete &= result.complete;
+                }
+                classList.addAll(result.classList);
+                signatureList.addAll(result.signatureList);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
-            if (!loadAll) {
-                // 只有默认加载才写入缓存文件，避免全量加载覆盖了精简的缓存（或者您可以选择覆盖）
-                FileHelper.writeFileFromSD(classCachePath + File.separator + "class-" + version, classCacheList);
+            if (pool != null)
+                pool.shutdown();
+            ClassIndex index = ClassIndex.build(version, classList);
+            SignatureIndex signature = SignatureIndex.build(version, signatureList);
+            // 有dex读取失败时索引不完整，只在本进程内使用，不落盘也不发布，预建不会标记完成，下次启动重新扫描
+            if (complete) {
+                if (saveCache) {
+                    index = saveClassIndex(version, index, signature);
+                    deleteStaleCache();
+                }
+                publishSharedIndex(index, signature);
+            } else
+                XposedBridge.log("DolbyBeta: dex scan incomplete, class index not saved");
+            if (saveCache && getClassIndexFile().isFile())
+                setIndexSource(getClassIndexFile(), getSignatureIndexFile(), version);
+            else if (getShareClassIndexFile().isFile())
+                setIndexSource(getShareClassIndexFile(), getShareSignatureIndexFile(), version);
+            indexSnapshot.set(new IndexSnapshot(index, signature, null));
+        }
+    }
+
+    private static synchronized void setIndexSource(File classIndexFile, File signatureIndexFile, int version) {
+        classIndexSource = classIndexFile;
+        signatureIndexSource = signatureIndexFile;
+        indexSourceVersion = version;
+    }
+
+    /**
+     * 索引就绪后回调安装hook，之后进入释放流程
+     */
+    private static void onIndexReady(OnCacheClassListener listener) {
+        indexReadyFuture.set(true);
+        if (listener != null)
+            listener.onGet();
+        scheduleIndexRelease();
+    }
+
+    /**
+     * 索引第一次就绪时完成，之后索引被释放也会在查找时自动重新映射。
+     * 在此之前发起的查找会等到就绪后再执行，调用线程不会等待扫描
+     */
+    public static ListenableFuture<Boolean> getIndexReadyFuture() {
+        return Futures.nonCancellationPropagating(indexReadyFuture);
+    }
+
+    /**
+     * 索引的生命周期：解析期间常驻，已发起的查找全部完成且空闲INDEX_IDLE_TIME后释放映射的类名索引、
+     * 结构特征与过滤结果，之后再有查找时从文件重新映射。常驻后台的play进程因此不必一直持有索引。
+     * 反射元数据缓存不随之清空，hook回调仍在使用，其值为软引用，由GC按内存压力回收
+     */
+    private static void scheduleIndexRelease() {
+        synchronized (ClassHelper.class) {
+            if (indexReleaseScheduled)
+                return;
+            indexReleaseScheduled = true;
+        }
+        List<ListenableFuture<Class<?>>> futureList = new ArrayList<>(classFutureMap.values());
+        Futures.whenAllComplete(futureList).run(() -> {
+            //这一批查找的结果合并写入一次
+            flushTargetCache();
+            indexReleaseExecutor.schedule(ClassHelper::releaseIndexIfIdle, INDEX_IDLE_TIME, TimeUnit.MILLISECONDS);
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static void flushTargetCache() {
+        TargetCache cache = targetCache;
+        if (cache != null)
+            cache.flush();
+    }
+
+    private static synchronized void releaseIndexIfIdle() {
+        long idleTime = System.currentTimeMillis() - lastLookupTime;
+        if (idleTime < INDEX_IDLE_TIME) {
+            indexReleaseExecutor.schedule(ClassHelper::releaseIndexIfIdle, INDEX_IDLE_TIME - idleTime, TimeUnit.MILLISECONDS);
+            return;
+        }
+        indexReleaseScheduled = false;
+        IndexSnapshot snapshot = indexSnapshot.get();
+        if (snapshot == null)
+            return;
+        if (classIndexSource == null) {
+            indexSnapshot.compareAndSet(snapshot, snapshot.withLookupResults(null));
+            return;
+        }
+        indexSnapshot.set(null);
+        indexReleased = true;
+        XposedBridge.log("DolbyBeta: class index released");
+    }
+
+    /**
+     * 查找时取得当前快照，已释放时从文件重新映射，尚未就绪时返回null
+     */
+    private static IndexSnapshot getSnapshot() {
+        lastLookupTime = System.currentTimeMillis();
+        IndexSnapshot snapshot = indexSnapshot.get();
+        return snapshot != null || !indexReleased ? snapshot : reloadIndex();
+    }
+
+    /**
+     * 索引尚未就绪时返回空索引
+     */
+    private static ClassIndex getClassIndex() {
+        IndexSnapshot snapshot = getSnapshot();
+        return snapshot != null ? snapshot.classIndex : EMPTY_INDEX;
+    }
+
+    /**
+     * 没有结构特征时返回null
+     */
+    private static SignatureIndex getSignatureIndex() {
+        IndexSnapshot snapshot = getSnapshot();
+        return snapshot == null ? null : snapshot.signatureIndex;
+    }
+
+    private static synchronized IndexSnapshot reloadIndex() {
+        if (indexSnapshot.get() == null && indexReleased) {
+            long startTime = System.currentTimeMillis();
+            ClassIndex index = ClassIndex.open(classIndexSource, indexSourceVersion);
+            if (index == null) {
+                XposedBridge.log("DolbyBeta: reload class index failed");
+                return null;
             }
-            if (listener != null) {
-                listener.onGet();
+            SignatureIndex signature = signatureIndexSource == null ? null : SignatureIndex.open(signatureIndexSource, indexSourceVersion);
+            indexSnapshot.set(new IndexSnapshot(index, signature, null));
+            indexReleased = false;
+            XposedBridge.log("DolbyBeta: class index reloaded in " + (System.currentTimeMillis() - startTime) + "ms");
+            scheduleIndexRelease();
+        }
+        return indexSnapshot.get();
+    }
+
+    /**
+     * 索引快照，发布后不再修改；补充过滤结果时发布新的快照
+     */
+    private static final class IndexSnapshot {
+        final ClassIndex classIndex;
+        //类结构特征，只记录网易云和okhttp的类
+        final SignatureIndex signatureIndex;
+        //所有查找的正则过滤结果，键为正则表达式，第一次查找时求出
+        final Map<String, List<String>> lookupResults;
+
+        IndexSnapshot(ClassIndex classIndex, SignatureIndex signatureIndex, Map<String, List<String>> lookupResults) {
+            this.classIndex = classIndex;
+            this.signatureIndex = signatureIndex;
+            this.lookupResults = lookupResults;
+        }
+
+        IndexSnapshot withLookupResults(Map<String, List<String>> results) {
+            return new IndexSnapshot(classIndex, signatureIndex, results);
+        }
+    }
+
+    /**
+     * 缓存键，读取apk指纹失败时退回使用versionCode
+     */
+    private static String getCacheKey() {
+        return apkFingerprint != null ? apkFingerprint.getKey() : String.valueOf(versionCode);
+    }
+
+    private static File getClassIndexFile() {
+        return new File(classCachePath + File.separator + "class-" + getCacheKey() + ".idx");
+    }
+
+    private static File getSignatureIndexFile() {
+        return new File(classCachePath + File.separator + "signature-" + getCacheKey() + ".idx");
+    }
+
+    private static File getShareClassIndexFile() {
+        return new File(sharePath + File.separator + "class-" + getCacheKey() + ".idx");
+    }
+
+    private static File getShareSignatureIndexFile() {
+        return new File(sharePath + File.separator + "signature-" + getCacheKey() + ".idx");
+    }
+
+    private static File getShareTargetFile() {
+        return new File(sharePath + File.separator + "target-" + getCacheKey());
+    }
+
+    private static File getDexClassIndexFile(ApkFingerprint fingerprint, String dexName) {
+        return new File(classCachePath + File.separator + "dex-" + fingerprint.getDexKey(dexName) + ".idx");
+    }
+
+    private static File getDexSignatureIndexFile(ApkFingerprint fingerprint, String dexName) {
+        return new File(classCachePath + File.separator + "dex-" + fingerprint.getDexKey(dexName) + ".sig");
+    }
+
+    /**
+     * 写入索引文件后改用内存映射，释放构建时占用的堆内存。
+     * 先写结构特征再写类名索引，类名索引存在即表示两个文件都已写好
+     *
+     * @return 映射后的索引，写入失败时返回原索引
+     */
+    private static ClassIndex saveClassIndex(int version, ClassIndex index, SignatureIndex signature) {
+        File indexFile = getClassIndexFile();
+        try {
+            signature.writeTo(getSignatureIndexFile());
+            index.writeTo(indexFile);
+            ClassIndex mappedIndex = ClassIndex.open(indexFile, version);
+            if (mappedIndex != null)
+                index = mappedIndex;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return index;
+    }
+
+    /**
+     * 读取单个dex上次的扫描结果，以dex的CRC32作为索引版本校验
+     */
+    private static DexScanResult readDexScanResult(ApkFingerprint fingerprint, String dexName) {
+        int crc = fingerprint.getDexCrc(dexName);
+        ClassIndex dexClassIndex = ClassIndex.open(getDexClassIndexFile(fingerprint, dexName), crc);
+        if (dexClassIndex == null)
+            return null;
+        SignatureIndex dexSignatureIndex = SignatureIndex.open(getDexSignatureIndexFile(fingerprint, dexName), crc);
+        if (dexSignatureIndex == null)
+            return null;
+        DexScanResult result = new DexScanResult();
+        dexClassIndex.appendTo(result.classList);
+        result.signatureList.addAll(dexSignatureIndex.getSignatures());
+        result.complete = true;
+        return result;
+    }
+
+    private static void saveDexScanResult(ApkFingerprint fingerprint, String dexName, DexScanResult result) {
+        int crc = fingerprint.getDexCrc(dexName);
+        try {
+            ClassIndex.build(crc, result.classList).writeTo(getDexClassIndexFile(fingerprint, dexName));
+            SignatureIndex.build(crc, result.signatureList).writeTo(getDexSignatureIndexFile(fingerprint, dexName));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 把索引发布到共享目录供play进程映射。两个文件都是先写临时文件再重命名，
+     * 先写结构特征再写类名索引，类名索引出现即表示发布完成
+     */
+    private static void publishSharedIndex(ClassIndex index, SignatureIndex signature) {
+        if (sharePath == null)
+            return;
+        File indexFile = getShareClassIndexFile();
+        if (indexFile.isFile())
+            return;
+        try {
+            if (signature != null)
+                signature.writeTo(getShareSignatureIndexFile());
+            index.writeTo(indexFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        File[] files = new File(sharePath).listFiles();
+        if (files == null)
+            return;
+        List<String> keepList = Arrays.asList(indexFile.getName(), getShareSignatureIndexFile().getName(), getShareTargetFile().getName(),
+                PREVIOUS_TARGET_FILE, LOCK_FILE);
+        for (File file : files)
+            if (file.isFile() && !keepList.contains(file.getName()))
+                FileHelper.deleteFile(file.getPath());
+    }
+
+    /**
+     * 删除其他宿主版本留下的缓存
+     */
+    private static void deleteStaleCache() {
+        File[] files = new File(classCachePath).listFiles();
+        if (files == null)
+            return;
+        List<String> keepList = new ArrayList<>();
+        keepList.add(getClassIndexFile().getName());
+        keepList.add(getSignatureIndexFile().getName());
+        if (apkFingerprint != null) {
+            for (String dexName : apkFingerprint.getDexNameList()) {
+                keepList.add(getDexClassIndexFile(apkFingerprint, dexName).getName());
+                keepList.add(getDexSignatureIndexFile(apkFingerprint, dexName).getName());
+            }
+        }
+        for (File file : files) {
+            String name = file.getName();
+            boolean isCache = name.startsWith("class-") || name.startsWith("signature-")
+                    || name.startsWith("target-") || name.startsWith("dex-");
+            if (isCache && file.isFile() && !keepList.contains(name))
+                FileHelper.deleteFile(file.getPath());
+        }
+    }
+
+    private static class DexScanResult {
+        //类名以UTF-8字节存放，合并与建索引时都不解码
+        final ClassNameArena classList = new ClassNameArena();
+        final List<ClassSignature> signatureList = new ArrayList<>();
+        //解析过程中没有出错
+        boolean complete;
+    }
+
+    /**
+     * 解析单个dex的类名，同时记录网易云和okhttp类的结构特征
+     */
+    private static class DexScanTask extends RecursiveTask<DexScanResult> {
+        private final File appInstallFile;
+        private final String dexName;
+        private final boolean loadAll;
+
+        DexScanTask(File appInstallFile, String dexName, boolean loadAll) {
+            this.appInstallFile = appInstallFile;
+            this.dexName = dexName;
+            this.loadAll = loadAll;
+        }
+
+        @Override
+        protected DexScanResult compute() {
+            DexScanResult result = new DexScanResult();
+            try {
+                // 全量模式排除系统类，默认模式仅包含网易云和okhttp相关类
+                Predicate<String> classFilter = loadAll
+                        ? classType -> !classType.startsWith("Landroid") && !classType.startsWith("Ljava")
+                        && !classType.startsWith("Ljavax") && !classType.startsWith("Lkotlin") && !classType.startsWith("Landroidx")
+                        : classType -> classType.contains("com/netease/cloudmusic") || classType.contains("okhttp3");
+                DexStreamReader.scan(appInstallFile, dexName, classFilter,
+                        classType -> classType.startsWith("Lcom/netease/cloudmusic/") || classType.startsWith("Lokhttp3/"),
+                        result.classList, result.signatureList);
+                result.complete = true;
+            } catch (Exception e) {
+                XposedBridge.log("DolbyBeta: scan " + dexName + " failed: " + e);
             }
+            return result;
         }
     }
 
@@ -143,40 +802,402 @@ public class ClassHelper {
         void onGet();
     }
 
+    /**
+     * 依次按各pattern过滤并拼接结果。
+     * 优先使用批量过滤的结果
+     */
+    private static List<String> getFilteredClasses(Comparator<String> comparator, Pattern... patterns) {
+        Map<String, List<String>> results = getLookupResults();
+        List<String> list = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            List<String> matched = results.get(pattern.pattern());
+            if (matched == null)
+                list.addAll(getFilteredClasses(pattern, comparator));
+            else {
+                matched = new ArrayList<>(matched);
+                Collections.sort(matched, comparator);
+                list.addAll(matched);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 首次查找时收集所有查找用到的正则，一次遍历索引全部求出，结果随新快照整体发布且不可修改。
+     * 求值时不加锁，并发的线程可能各求一次，只有基于当前快照的结果会被发布
+     */
+    private static Map<String, List<String>> getLookupResults() {
+        IndexSnapshot snapshot = getSnapshot();
+        if (snapshot == null)
+            return Collections.emptyMap();
+        if (snapshot.lookupResults != null)
+            return snapshot.lookupResults;
+        Map<String, Pattern> patternMap = new LinkedHashMap<>();
+        for (Pattern[] patterns : new Pattern[][]{Cookie.getPatterns(), DownloadTransfer.getPatterns(),
+                BottomTabView.getPatterns(), SidebarItem.getPatterns(), CommentDataClass.getPatterns(),
+                Ad.getPatterns(), OKHttp3Response.getPatterns(), OKHttp3Header.getPatterns(),
+                HttpResponse.getPatterns(), HttpUrl.getPatterns(), HttpParams.getPatterns(),
+                HttpInterceptor.getPatterns()})
+            for (Pattern pattern : patterns)
+                patternMap.put(pattern.pattern(), pattern);
+        List<Pattern> patternList = new ArrayList<>(patternMap.values());
+        List<List<String>> matchedList = snapshot.classIndex.filter(patternList);
+        Map<String, List<String>> map = new HashMap<>();
+        for (int i = 0; i < patternList.size(); i++)
+            map.put(patternList.get(i).pattern(), Collections.unmodifiableList(matchedList.get(i)));
+        Map<String, List<String>> results = Collections.unmodifiableMap(map);
+        indexSnapshot.compareAndSet(snapshot, snapshot.withLookupResults(results));
+        return results;
+    }
+
     public static List<String> getFilteredClasses(Pattern pattern, Comparator<String> comparator) {
-        // 1. 尝试使用正则过滤当前缓存
-        List<String> list = Stream.of(classCacheList)
-                .filter(s -> pattern.matcher(s).find())
-                .toList();
-
-        // 2. 如果结果为空
-        if (list.isEmpty()) {
-            // 如果还没全量加载，尝试进行全量加载
-            if (!isFullLoaded && mContext != null) {
-                XposedBridge.log("DolbyBeta: Pattern " + pattern.toString() + " not found, trying full scan...");
-                synchronized (ClassHelper.class) {
-                    if (!isFullLoaded) {
-                        classCacheList.clear();
-                        getCacheClassByZip(mContext, versionCode, null, true);
-                        isFullLoaded = true;
-                    }
+        List<String> list = getClassIndex().filter(pattern);
+        if (list.isEmpty())
+            XposedBridge.log("DolbyBeta: Pattern " + pattern.toString() + " not found");
+        Collections.sort(list, comparator);
+        return list;
+    }
+
+    /**
+     * 依次查找目标缓存与正则候选，都没有命中时提交到后台兜底查找，不阻塞调用线程。
+     * 索引尚未就绪时等就绪后再查找，调用线程不等待扫描。
+     * 同一个key只查找一次，先占位再在锁外查找，不同key的查找互不等待；结果为null表示兜底查找也没有找到。
+     * 索引释放后重新加载失败时返回失败的future，不占位，之后的查找会重试
+     */
+    private static ListenableFuture<Class<?>> resolveClass(Context context, String key, Pattern[] patterns, Comparator<String> comparator,
+                                                           Function<List<String>, Class<?>> finder, int notFoundCode) {
+        ListenableFuture<Class<?>> future = classFutureMap.get(key);
+        if (future != null)
+            return future;
+        if (getSnapshot() == null) {
+            if (!indexReadyFuture.isDone())
+                return Futures.transformAsync(indexReadyFuture, ready -> resolveClass(context, key, patterns, comparator, finder, notFoundCode),
+                        MoreExecutors.directExecutor());
+            //索引已释放且重新加载失败，就绪后再等待只会立即重入。这不是找不到，不缓存也不发送通知，下次查找时再尝试重新加载
+            XposedBridge.log("DolbyBeta: " + key + " lookup failed, class index unavailable");
+            return Futures.immediateFailedFuture(new IllegalStateException("class index unavailable"));
+        }
+        SettableFuture<Class<?>> result = SettableFuture.create();
+        future = classFutureMap.putIfAbsent(key, result);
+        if (future != null)
+            return future;
+        try {
+            Class<?> clazz = targetCache.getClass(key);
+            if (clazz == null) {
+                List<String> probeList = getProbeCandidates(key);
+                if (!probeList.isEmpty())
+                    clazz = findClassSafely(finder, probeList);
+                if (clazz != null)
+                    XposedBridge.log("DolbyBeta: " + key + " resolved from previous version: " + clazz.getName());
+                else {
+                    List<String> candidateList = getFilteredClasses(comparator, patterns);
+                    candidateList.removeAll(new HashSet<>(probeList));
+                    clazz = findClassSafely(finder, candidateList);
                 }
-                // 全量加载后再次尝试过滤
-                list = Stream.of(classCacheList)
-                        .filter(s -> pattern.matcher(s).find())
-                        .toList();
+                if (clazz != null)
+                    targetCache.putClass(key, clazz, getFingerprint(clazz.getName()));
             }
+            if (clazz != null)
+                result.set(clazz);
+            else
+                result.setFuture(fallbackExecutor.submit(() -> searchClassFallback(context, key, patterns, finder, notFoundCode)));
+        } catch (RuntimeException e) {
+            result.setException(e);
+        }
+        return result;
+    }
+
+    /**
+     * 宿主更新后混淆名往往只有小幅变动，先试探上个版本解析出的类名及其同包的兄弟类：
+     * 旧类名仍存在时排在最前，兄弟类按与旧类结构指纹的相似度、再按与旧类名的远近排序，最多PROBE_LIMIT个。
+     * 只比较索引中记录的结构特征，排序时不加载类。没有上个版本的记录时返回空列表
+     */
+    private static List<String> getProbeCandidates(String key) {
+        TargetCache previous = previousTargets;
+        final String oldName = previous == null ? null : previous.getClassName(key);
+        if (oldName == null || oldName.lastIndexOf('.') <= 0)
+            return new ArrayList<>();
+        final String oldFingerprint = previous.getFingerprint(key);
+        String packagePrefix = oldName.substring(0, oldName.lastIndexOf('.') + 1);
+        StringBuilder regex = new StringBuilder("^");
+        for (char c : packagePrefix.toCharArray())
+            regex.append(Character.isLetterOrDigit(c) || c == '_' ? "" : "\\").append(c);
+        final List<String> siblingList = getClassIndex().filter(Pattern.compile(regex.append("[^.]+$").toString()));
+        Collections.sort(siblingList);
+        int oldPosition = Collections.binarySearch(siblingList, oldName);
+        final int anchor = oldPosition >= 0 ? oldPosition : -oldPosition - 1;
+        final Map<String, Float> scoreMap = new HashMap<>();
+        final Map<String, Integer> distanceMap = new HashMap<>();
+        for (int i = 0; i < siblingList.size(); i++) {
+            String name = siblingList.get(i);
+            scoreMap.put(name, name.equals(oldName) ? Float.MAX_VALUE : ClassSignature.similarity(oldFingerprint, getFingerprint(name)));
+            distanceMap.put(name, Math.abs(i - anchor));
+        }
+        List<String> probeList = new ArrayList<>(siblingList);
+        Collections.sort(probeList, (o1, o2) -> {
+            int c = Float.compare(scoreMap.get(o2), scoreMap.get(o1));
+            return c != 0 ? c : Integer.compare(distanceMap.get(o1), distanceMap.get(o2));
+        });
+        return new ArrayList<>(probeList.subList(0, Math.min(PROBE_LIMIT, probeList.size())));
+    }
 
-            // 3. 核心修改：如果依然为空（说明正则彻底失效），则返回所有类名
-            // 让调用者通过反射特征（字段/方法）在所有类中查找
-            if (list.isEmpty()) {
-                XposedBridge.log("DolbyBeta: Pattern match failed entirely, falling back to ALL classes.");
-                list = new ArrayList<>(classCacheList);
+    /**
+     * 索引中记录的结构指纹，没有结构特征的类返回null
+     */
+    private static String getFingerprint(String className) {
+        SignatureIndex index = getSignatureIndex();
+        ClassSignature signature = index == null ? null : index.get(className);
+        return signature == null ? null : signature.getFingerprint();
+    }
+
+    /**
+     * 当前宿主版本还没有目标缓存时，把共享目录中最近的其他版本的目标缓存保留为上个版本的缓存
+     */
+    private static void loadPreviousTargets() {
+        if (sharePath == null)
+            return;
+        File previousFile = new File(sharePath, PREVIOUS_TARGET_FILE);
+        File[] files = new File(sharePath).listFiles();
+        if (!getShareTargetFile().isFile() && files != null) {
+            File latestFile = null;
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isFile() && name.startsWith("target-") && !name.endsWith(".tmp") && !file.equals(previousFile)
+                        && (latestFile == null || file.lastModified() > latestFile.lastModified()))
+                    latestFile = file;
             }
+            if (latestFile != null && !latestFile.renameTo(previousFile))
+                XposedBridge.log("DolbyBeta: rename " + latestFile.getName() + " failed");
         }
+        previousTargets = previousFile.isFile() ? TargetCache.loadSnapshot(previousFile, classLoader) : null;
+    }
 
-        Collections.sort(list, comparator);
-        return list;
+    /**
+     * 按包名与正则前缀的接近程度遍历所有类，超过时间或类数量上限即放弃
+     */
+    private static Class<?> searchClassFallback(Context context, String key, Pattern[] patterns,
+                                                Function<List<String>, Class<?>> finder, int notFoundCode) {
+        long startTime = System.currentTimeMillis();
+        XposedBridge.log("DolbyBeta: " + key + " not found, searching in background...");
+        List<String> candidateList = rankByPackage(getClassIndex().toList(), patterns);
+        int limit = Math.min(candidateList.size(), FALLBACK_CLASS_LIMIT);
+        // 每批至少让所有匹配线程各分到一块
+        int batchSize = Math.max(FALLBACK_BATCH_SIZE, MATCH_CHUNK_SIZE * MATCH_PARALLELISM);
+        for (int start = 0; start < limit; start += batchSize) {
+            if (System.currentTimeMillis() - startTime > FALLBACK_TIME_LIMIT)
+                break;
+            Class<?> clazz = findClassSafely(finder, candidateList.subList(start, Math.min(start + batchSize, limit)));
+            if (clazz != null) {
+                XposedBridge.log("DolbyBeta: " + key + " found in background: " + clazz.getName());
+                targetCache.putClass(key, clazz, getFingerprint(clazz.getName()));
+                return clazz;
+            }
+        }
+        XposedBridge.log("DolbyBeta: " + key + " not found in " + (System.currentTimeMillis() - startTime) + "ms");
+        if (context != null && notFoundCode != 0)
+            MessageHelper.sendNotification(context, notFoundCode);
+        return null;
+    }
+
+    /**
+     * 与任一正则字面前缀相同的包名层级越多越靠前，层级相同时保持原有顺序
+     */
+    private static List<String> rankByPackage(List<String> nameList, Pattern[] patterns) {
+        List<String[]> expectedList = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            String prefix = ClassIndex.literalPrefix(pattern);
+            int end = prefix.lastIndexOf('.');
+            if (end > 0)
+                expectedList.add(prefix.substring(0, end).split("\\."));
+        }
+        Map<String, Integer> scoreMap = new HashMap<>(nameList.size() * 2);
+        for (String name : nameList) {
+            String[] segments = name.split("\\.");
+            int score = 0;
+            for (String[] expected : expectedList) {
+                int same = 0;
+                while (same < expected.length && same < segments.length - 1 && expected[same].equals(segments[same]))
+                    same++;
+                score = Math.max(score, same);
+            }
+            scoreMap.put(name, score);
+        }
+        List<String> rankList = new ArrayList<>(nameList);
+        Collections.sort(rankList, (o1, o2) -> Integer.compare(scoreMap.get(o2), scoreMap.get(o1)));
+        return rankList;
+    }
+
+    /**
+     * 候选类较少时在当前线程匹配；较多时按MATCH_CHUNK_SIZE分块提交到并行线程池，
+     * 某块找到后不再执行其后尚未开始的块。按块的顺序取第一个结果，与顺序匹配的结果一致
+     */
+    private static Class<?> findClassSafely(final Function<List<String>, Class<?>> finder, List<String> list) {
+        if (MATCH_PARALLELISM == 1 || list.size() <= MATCH_CHUNK_SIZE)
+            return applyFinder(finder, list);
+        int chunkCount = (list.size() + MATCH_CHUNK_SIZE - 1) / MATCH_CHUNK_SIZE;
+        //已找到的最靠前的块
+        final AtomicInteger foundChunk = new AtomicInteger(chunkCount);
+        List<Future<Class<?>>> futureList = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            final int chunk = i;
+            final List<String> chunkList = list.subList(i * MATCH_CHUNK_SIZE, Math.min(list.size(), (i + 1) * MATCH_CHUNK_SIZE));
+            futureList.add(matchExecutor.submit(() -> {
+                if (foundChunk.get() < chunk)
+                    return null;
+                Class<?> clazz = applyFinder(finder, chunkList);
+                if (clazz != null) {
+                    int found = foundChunk.get();
+                    while (chunk < found && !foundChunk.compareAndSet(found, chunk))
+                        found = foundChunk.get();
+                }
+                return clazz;
+            }));
+        }
+        Class<?> result = null;
+        for (Future<Class<?>> future : futureList) {
+            if (result != null) {
+                future.cancel(false);
+                continue;
+            }
+            try {
+                result = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<Class<?>> other : futureList)
+                    other.cancel(false);
+                return null;
+            } catch (ExecutionException | CancellationException e) {
+                e.printStackTrace();
+            }
+        }
+        return result;
+    }
+
+    private static Class<?> applyFinder(Function<List<String>, Class<?>> finder, List<String> list) {
+        try {
+            return finder.apply(list);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 已完成时返回查找结果，否则返回null
+     */
+    private static Class<?> getResolvedClass(ListenableFuture<Class<?>> future) {
+        if (!future.isDone())
+            return null;
+        try {
+            return Futures.getDone(future);
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 同步取得查找结果，未完成时最多等待CLASS_WAIT_TIME，超时或没有找到时返回null。
+     * 只给安装hook之后才会调用的实例方法使用，安装hook本身用whenResolved
+     */
+    private static Class<?> awaitClass(ListenableFuture<Class<?>> future) {
+        if (future.isDone())
+            return getResolvedClass(future);
+        try {
+            return future.get(CLASS_WAIT_TIME, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException e) {
+            XposedBridge.log("DolbyBeta: wait for class timeout after " + CLASS_WAIT_TIME + "ms");
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 类没有取到时直接抛出，不把null交给字段与方法查找
+     */
+    private static Class<?> requireClass(Class<?> clazz, String key) {
+        if (clazz == null)
+            throw new NullPointerException(key + " not resolved");
+        return clazz;
+    }
+
+    /**
+     * 类查找完成且找到时回调，已完成时在当前线程立即回调，否则在后台线程回调
+     */
+    public static void whenResolved(ListenableFuture<Class<?>> future, OnClassResolvedListener listener) {
+        future.addListener(() -> {
+            Class<?> clazz = getResolvedClass(future);
+            if (clazz != null)
+                listener.onResolved(clazz);
+        }, MoreExecutors.directExecutor());
+    }
+
+    public interface OnClassResolvedListener {
+        void onResolved(Class<?> clazz);
+    }
+
+    /**
+     * 按结构特征预筛类名，没有特征记录的类一律放行，交给后续反射判断
+     */
+    private static Predicate<String> matchSignature(Predicate<ClassSignature> predicate) {
+        return className -> {
+            SignatureIndex index = getSignatureIndex();
+            ClassSignature signature = index == null ? null : index.get(className);
+            return signature == null || predicate.test(signature);
+        };
+    }
+
+    /**
+     * 以下三个方法返回的数组为缓存共享，调用方不能修改
+     */
+    private static Field[] getDeclaredFields(Class<?> clazz) {
+        return classMetaCache.getUnchecked(clazz).getDeclaredFields();
+    }
+
+    private static Method[] getDeclaredMethods(Class<?> clazz) {
+        return classMetaCache.getUnchecked(clazz).getDeclaredMethods();
+    }
+
+    private static Class<?>[] getInterfaces(Class<?> clazz) {
+        return classMetaCache.getUnchecked(clazz).getInterfaces();
+    }
+
+    /**
+     * 一个类的反射元数据，各项在第一次用到时才取得。并发时可能重复取得，结果相同，不加锁
+     */
+    private static class ClassMeta {
+        private final Class<?> clazz;
+        private volatile Field[] declaredFields;
+        private volatile Method[] declaredMethods;
+        private volatile Class<?>[] interfaces;
+
+        ClassMeta(Class<?> clazz) {
+            this.clazz = clazz;
+        }
+
+        Field[] getDeclaredFields() {
+            Field[] fields = declaredFields;
+            if (fields == null)
+                declaredFields = fields = clazz.getDeclaredFields();
+            return fields;
+        }
+
+        Method[] getDeclaredMethods() {
+            Method[] methods = declaredMethods;
+            if (methods == null)
+                declaredMethods = methods = clazz.getDeclaredMethods();
+            return methods;
+        }
+
+        Class<?>[] getInterfaces() {
+            Class<?>[] classes = interfaces;
+            if (classes == null)
+                interfaces = classes = clazz.getInterfaces();
+            return classes;
+        }
     }
 
     private static Class<?> getClassByXposed(String className) {
@@ -189,34 +1210,39 @@ public class ClassHelper {
     public static class Cookie {
         private static Class<?> clazz, abstractClazz;
 
+        static Pattern[] getPatterns() {
+            if (versionCode < 154)
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$")};
+            else if (versionCode < 8008050)
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$")};
+            else
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.cookie\\.store\\.[a-zA-Z0-9]{1,25}$")};
+        }
+
+        /**
+         * 在后台线程调用，最多等待COOKIE_WAIT_TIME，取不到Cookie类时返回null
+         */
         public static String getCookie(Context context) {
             if (clazz == null) {
-                Pattern pattern;
-                if (versionCode < 154)
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$");
-                else if (versionCode < 8008050)
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$");
-                else
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.cookie\\.store\\.[a-zA-Z0-9]{1,25}$");
-
-
-                // 调用 getFilteredClasses，如果 pattern 没匹配到，会自动返回所有类
-                List<String> list = getFilteredClasses(pattern, null);
-
+                abstractClazz = targetCache.getClass("Cookie.abstract");
+                if (abstractClazz != null)
+                    clazz = targetCache.getClass("Cookie");
+            }
+            if (clazz == null) {
                 try {
-                    // 这里的 findFirst 是惰性的，会在找到第一个匹配特征的类后停止加载
-                    abstractClazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(c -> c.getSuperclass() == Object.class)
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == ConcurrentHashMap.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == SharedPreferences.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == long.class))
-                            .findFirst()
-                            .get();
+                    // 可以等待兜底查找完成，但索引迟迟没有就绪时不能一直等下去，超时后返回null，下次调用再取
+                    abstractClazz = resolveClass(context, "Cookie.abstract", getPatterns(), null,
+                            Cookie::findAbstractClazz, 0).get(COOKIE_WAIT_TIME, TimeUnit.MILLISECONDS);
+                    if (abstractClazz == null)
+                        throw new NoSuchElementException();
 
                   if (versionCode >= 154) {
+                        // 子类一般与父类同包
+                        String packageName = abstractClazz.getName().substring(0, abstractClazz.getName().lastIndexOf('.'));
+                        List<String> list = getFilteredClasses(null, getPatterns());
+                        list.addAll(getFilteredClasses(Pattern.compile("^" + packageName.replace(".", "\\.") + "\\.[^.]+$"), null));
                         clazz = Stream.of(list)
+                                .filter(matchSignature(s -> s.isPublic() && !s.isInterface() && abstractClazz.getName().equals(s.getSuperclass())))
                                 .map(ClassHelper::getClassByXposed)
                                 .filter(c -> Modifier.isPublic(c.getModifiers()))
                                 .filter(m -> !Modifier.isInterface(m.getModifiers()))
@@ -226,9 +1252,16 @@ public class ClassHelper {
                     } else {
                         clazz = abstractClazz;
                     }
-                } catch (NoSuchElementException e) {
+                    targetCache.putClass("Cookie", clazz);
+                } catch (NoSuchElementException | ExecutionException e) {
                     MessageHelper.sendNotification(context, MessageHelper.cookieClassNotFoundCode);
+                } catch (TimeoutException e) {
+                    XposedBridge.log("DolbyBeta: wait for Cookie timeout after " + COOKIE_WAIT_TIME + "ms");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
+                if (clazz == null)
+                    return null;
             }
 
             Object cookieString = null;
@@ -248,30 +1281,54 @@ public class ClassHelper {
 
             return "MUSIC_U=" + cookieString;
         }
+
+        private static Class<?> findAbstractClazz(List<String> list) {
+            // 这里的 findFirst 是惰性的，会在找到第一个匹配特征的类后停止加载
+            return Stream.of(list)
+                    .filter(matchSignature(s -> s.isPublic()
+                            && "java.lang.Object".equals(s.getSuperclass())
+                            && s.hasFieldType("java.util.concurrent.ConcurrentHashMap")
+                            && s.hasFieldType("android.content.SharedPreferences")
+                            && s.hasFieldType("long")))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(c -> c.getSuperclass() == Object.class)
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == ConcurrentHashMap.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == SharedPreferences.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == long.class))
+                    .findFirst()
+                    .orElse(null);
+        }
     }
     
-    // ... 后续代码保持不变 (DownloadTransfer, MainActivitySuperClass 等)
-    // 它们调用 getFilteredClasses 时也会享受到“自动兜底返回所有类”的修复逻辑
-
     public static class DownloadTransfer {
         private static Method checkMd5Method;
         private static Method checkDownloadStatusMethod;
 
+        static Pattern[] getPatterns() {
+            return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.transfer\\.download\\.[a-z0-9]{1,2}$")};
+        }
+
         //下载完后的MD5检查
         public static Method getCheckMd5Method(Context context) {
+            if (checkMd5Method == null)
+                checkMd5Method = targetCache.getMethod("DownloadTransfer.checkMd5");
             if (checkMd5Method == null) {
-                Pattern pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.transfer\\.download\\.[a-z0-9]{1,2}$");
-                List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
+                List<String> list = ClassHelper.getFilteredClasses(Collections.reverseOrder(), getPatterns());
 
                 try {
                     checkMd5Method = Stream.of(list)
-                            .map(c -> getClassByXposed(c).getDeclaredMethods())
+                            .filter(matchSignature(s -> s.hasMethod(m -> m.getParameterCount() == 4
+                                    && "java.io.File".equals(m.getParameterType(0))
+                                    && "java.io.File".equals(m.getParameterType(1)))))
+                            .map(c -> getDeclaredMethods(getClassByXposed(c)))
                             .flatMap(Stream::of)
                             .filter(m -> m.getParameterTypes().length == 4)
                             .filter(m -> m.getParameterTypes()[0] == File.class)
                             .filter(m -> m.getParameterTypes()[1] == File.class)
                             .findFirst()
                             .get();
+                    targetCache.putMethod("DownloadTransfer.checkMd5", checkMd5Method);
                 } catch (NoSuchElementException e) {
                     MessageHelper.sendNotification(context, MessageHelper.transferClassNotFoundCode);
                 }
@@ -281,13 +1338,19 @@ public class ClassHelper {
 
         //下载之前下载状态检查
         public static Method getCheckDownloadStatusMethod(Context context) {
+            if (checkDownloadStatusMethod == null)
+                checkDownloadStatusMethod = targetCache.getMethod("DownloadTransfer.checkDownloadStatus");
             if (checkDownloadStatusMethod == null) {
-                Pattern pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.transfer\\.download\\.[a-z0-9]{1,2}$");
-                List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
+                List<String> list = ClassHelper.getFilteredClasses(Collections.reverseOrder(), getPatterns());
 
                 try {
                     checkDownloadStatusMethod = Stream.of(list)
-                            .map(c -> getClassByXposed(c).getDeclaredMethods())
+                            .filter(matchSignature(s -> s.hasMethod(m -> "long".equals(m.getReturnType())
+                                    && m.getParameterCount() == 5
+                                    && "int".equals(m.getParameterType(1))
+                                    && "java.io.File".equals(m.getParameterType(3))
+                                    && "long".equals(m.getParameterType(4)))))
+                            .map(c -> getDeclaredMethods(getClassByXposed(c)))
                             .flatMap(Stream::of)
                             .filter(m -> m.getReturnType() == long.class)
                             .filter(m -> m.getParameterTypes().length == 5)
@@ -296,6 +1359,7 @@ public class ClassHelper {
                             .filter(m -> m.getParameterTypes()[4] == long.class)
                             .findFirst()
                             .get();
+                    targetCache.putMethod("DownloadTransfer.checkDownloadStatus", checkDownloadStatusMethod);
                 } catch (NoSuchElementException e) {
                     MessageHelper.sendNotification(context, MessageHelper.transferClassNotFoundCode);
                 }
@@ -320,7 +1384,7 @@ public class ClassHelper {
             if (clazz == null)
                 getClazz(context);
             if (methods == null && clazz != null) {
-                List<Method> methodList = Arrays.asList(clazz.getDeclaredMethods());
+                List<Method> methodList = Arrays.asList(getDeclaredMethods(clazz));
                 methods = Stream.of(methodList)
                         .filter(m -> m.getParameterTypes().length >= 1)
                         .filter(m -> m.getReturnType() == void.class)
@@ -334,7 +1398,7 @@ public class ClassHelper {
         public static Method getViewPagerInitMethod(Context context) {
             if (method == null) {
                 try {
-                    List<Method> methodList = Arrays.asList(findClass("com.netease.cloudmusic.activity.MainActivity", context.getClassLoader()).getDeclaredMethods());
+                    List<Method> methodList = Arrays.asList(getDeclaredMethods(findClass("com.netease.cloudmusic.activity.MainActivity", context.getClassLoader())));
                     method = Stream.of(methodList)
                             .filter(m -> m.getParameterTypes().length == 1)
                             .filter(m -> m.getReturnType() == void.class)
@@ -351,56 +1415,70 @@ public class ClassHelper {
     }
 
     public static class BottomTabView {
-        private static Class<?> clazz;
         private static Method initMethod, refreshMethod;
 
+        static Pattern[] getPatterns() {
+            return new Pattern[]{
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.[a-z0-9]{1,2}\\.[a-z]$"),
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z0-9]{1,2}\\.[a-z]\\.[a-z]$"),
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.main\\.[a-z]$")
+            };
+        }
+
         public static Class<?> getClazz(Context context) {
-            if (clazz == null) {
-                try {
-                    Pattern pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.[a-z0-9]{1,2}\\.[a-z]$");
-                    Pattern pattern2 = Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z0-9]{1,2}\\.[a-z]\\.[a-z]$");
-                    Pattern pattern3 = Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.main\\.[a-z]$");
-                    List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
-                    list.addAll(ClassHelper.getFilteredClasses(pattern2, Collections.reverseOrder()));
-                    list.addAll(ClassHelper.getFilteredClasses(pattern3, Collections.reverseOrder()));
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(m -> Modifier.isFinal(m.getModifiers()))
-                            .filter(m -> !Modifier.isInterface(m.getModifiers()))
-                            .filter(m -> !Modifier.isStatic(m.getModifiers()))
-                            .filter(m -> !Modifier.isAbstract(m.getModifiers()))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == String.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == ArrayList.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == boolean.class))
-                            .filter(c -> Stream.of(c.getDeclaredMethods()).anyMatch(m -> m.getReturnType() == ArrayList.class && Modifier.isFinal(m.getModifiers()) && m.getParameterTypes().length == 0))
-                            .filter(c -> Stream.of(c.getDeclaredMethods()).anyMatch(m -> m.getReturnType() == String[].class && Modifier.isFinal(m.getModifiers()) && m.getParameterTypes().length == 0))
-                            .findFirst()
-                            .get();
-                } catch (NoSuchElementException e) {
-                    MessageHelper.sendNotification(context, MessageHelper.tabClassNotFoundCode);
-                }
-            }
-            return clazz;
+            return awaitClass(getClazzAsync(context));
         }
 
-        public static Method getTabInitMethod(Context context) {
+        public static ListenableFuture<Class<?>> getClazzAsync(Context context) {
+            return resolveClass(context, "BottomTabView", getPatterns(), Collections.reverseOrder(), BottomTabView::findClazz, MessageHelper.tabClassNotFoundCode);
+        }
+
+        private static Class<?> findClazz(List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> s.isPublic() && s.isFinal() && !s.isInterface() && !s.isAbstract()
+                            && s.hasFieldType("java.lang.String")
+                            && s.hasFieldType("java.util.ArrayList")
+                            && s.hasFieldType("boolean")
+                            && s.hasMethod(m -> "java.util.ArrayList".equals(m.getReturnType()) && m.isFinal() && m.getParameterCount() == 0)
+                            && s.hasMethod(m -> "[Ljava.lang.String;".equals(m.getReturnType()) && m.isFinal() && m.getParameterCount() == 0)))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(m -> Modifier.isFinal(m.getModifiers()))
+                    .filter(m -> !Modifier.isInterface(m.getModifiers()))
+                    .filter(m -> !Modifier.isStatic(m.getModifiers()))
+                    .filter(m -> !Modifier.isAbstract(m.getModifiers()))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == String.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == ArrayList.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == boolean.class))
+                    .filter(c -> Stream.of(getDeclaredMethods(c)).anyMatch(m -> m.getReturnType() == ArrayList.class && Modifier.isFinal(m.getModifiers()) && m.getParameterTypes().length == 0))
+                    .filter(c -> Stream.of(getDeclaredMethods(c)).anyMatch(m -> m.getReturnType() == String[].class && Modifier.isFinal(m.getModifiers()) && m.getParameterTypes().length == 0))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        public static Method getTabInitMethod(Context context, Class<?> bottomTabViewClass) {
+            if (initMethod == null)
+                initMethod = targetCache.getMethod("BottomTabView.init");
             if (initMethod == null) {
-                Method[] methods = findMethodsByExactParameters(clazz, ArrayList.class);
-                if (methods.length != 0)
+                Method[] methods = findMethodsByExactParameters(bottomTabViewClass, ArrayList.class);
+                if (methods.length != 0) {
                     initMethod = methods[0];
-                else
+                    targetCache.putMethod("BottomTabView.init", initMethod);
+                } else
                     MessageHelper.sendNotification(context, MessageHelper.tabClassNotFoundCode);
             }
             return initMethod;
         }
 
-        public static Method getTabRefreshMethod(Context context) {
+        public static Method getTabRefreshMethod(Context context, Class<?> bottomTabViewClass) {
+            if (refreshMethod == null)
+                refreshMethod = targetCache.getMethod("BottomTabView.refresh");
             if (refreshMethod == null) {
-                Method[] methods = findMethodsByExactParameters(clazz, void.class, List.class);
-                if (methods.length != 0)
+                Method[] methods = findMethodsByExactParameters(bottomTabViewClass, void.class, List.class);
+                if (methods.length != 0) {
                     refreshMethod = methods[0];
-                else
+                    targetCache.putMethod("BottomTabView.refresh", refreshMethod);
+                } else
                     MessageHelper.sendNotification(context, MessageHelper.tabClassNotFoundCode);
             }
             return refreshMethod;
@@ -408,33 +1486,41 @@ public class ClassHelper {
     }
 
     public static class SidebarItem {
-        private static Class<?> clazz;
+
+        static Pattern[] getPatterns() {
+            return new Pattern[]{
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.account\\.[a-z]$"),
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.music\\.biz\\.sidebar\\.account\\.[a-z0-9]{1,2}$")
+            };
+        }
 
         public static Class<?> getClazz(Context context) {
-            if (clazz == null) {
-                try {
-                    Pattern pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.account\\.[a-z]$");
-                    Pattern pattern2 = Pattern.compile("^com\\.netease\\.cloudmusic\\.music\\.biz\\.sidebar\\.account\\.[a-z0-9]{1,2}$");
-                    List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
-                    list.addAll(ClassHelper.getFilteredClasses(pattern2, Collections.reverseOrder()));
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(m -> Modifier.isFinal(m.getModifiers()))
-                            .filter(m -> !Modifier.isInterface(m.getModifiers()))
-                            .filter(m -> !Modifier.isStatic(m.getModifiers()))
-                            .filter(m -> !Modifier.isAbstract(m.getModifiers()))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == int.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == List.class))
-                            .filter(c -> Stream.of(c.getDeclaredMethods()).anyMatch(m -> m.getReturnType() == List.class))
-                            .filter(c -> Stream.of(c.getDeclaredMethods()).anyMatch(m -> m.getReturnType() == Throwable.class))
-                            .findFirst()
-                            .get();
-                } catch (NoSuchElementException e) {
-                    MessageHelper.sendNotification(context, MessageHelper.sidebarClassNotFoundCode);
-                }
-            }
-            return clazz;
+            return awaitClass(getClazzAsync(context));
+        }
+
+        public static ListenableFuture<Class<?>> getClazzAsync(Context context) {
+            return resolveClass(context, "SidebarItem", getPatterns(), Collections.reverseOrder(), SidebarItem::findClazz, MessageHelper.sidebarClassNotFoundCode);
+        }
+
+        private static Class<?> findClazz(List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> s.isPublic() && s.isFinal() && !s.isInterface() && !s.isAbstract()
+                            && s.hasFieldType("int")
+                            && s.hasFieldType("java.util.List")
+                            && s.hasMethod(m -> "java.util.List".equals(m.getReturnType()))
+                            && s.hasMethod(m -> "java.lang.Throwable".equals(m.getReturnType()))))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(m -> Modifier.isFinal(m.getModifiers()))
+                    .filter(m -> !Modifier.isInterface(m.getModifiers()))
+                    .filter(m -> !Modifier.isStatic(m.getModifiers()))
+                    .filter(m -> !Modifier.isAbstract(m.getModifiers()))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == int.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == List.class))
+                    .filter(c -> Stream.of(getDeclaredMethods(c)).anyMatch(m -> m.getReturnType() == List.class))
+                    .filter(c -> Stream.of(getDeclaredMethods(c)).anyMatch(m -> m.getReturnType() == Throwable.class))
+                    .findFirst()
+                    .orElse(null);
         }
     }
 
@@ -442,36 +1528,45 @@ public class ClassHelper {
      * 评论
      */
     public static class CommentDataClass {
-        private static Class<?> clazz;
+
+        static Pattern[] getPatterns() {
+            return new Pattern[]{
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.comment2\\.[a-z]\\.[a-z]$"),
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.music\\.biz\\.comment\\.[a-z]\\.[a-z]$"),
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.music\\.biz\\.comment\\.viewmodel\\.[a-z]$")
+            };
+        }
 
         public static Class<?> getClazz() {
-            if (clazz == null) {
-                try {
-                    Pattern pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.comment2\\.[a-z]\\.[a-z]$");
-                    Pattern pattern2 = Pattern.compile("^com\\.netease\\.cloudmusic\\.music\\.biz\\.comment\\.[a-z]\\.[a-z]$");
-                    Pattern pattern3 = Pattern.compile("^com\\.netease\\.cloudmusic\\.music\\.biz\\.comment\\.viewmodel\\.[a-z]$");
-                    List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
-                    list.addAll(ClassHelper.getFilteredClasses(pattern2, Collections.reverseOrder()));
-                    list.addAll(ClassHelper.getFilteredClasses(pattern3, Collections.reverseOrder()));
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(m -> !Modifier.isInterface(m.getModifiers()))
-                            .filter(m -> !Modifier.isStatic(m.getModifiers()))
-                            .filter(m -> !Modifier.isAbstract(m.getModifiers()))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == int.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == List.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == Intent.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == String.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == long.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == boolean.class))
-                            .findFirst()
-                            .get();
-                } catch (NoSuchElementException e) {
-                    e.printStackTrace();
-                }
-            }
-            return clazz;
+            return awaitClass(getClazzAsync());
+        }
+
+        public static ListenableFuture<Class<?>> getClazzAsync() {
+            return resolveClass(null, "CommentDataClass", getPatterns(), Collections.reverseOrder(), CommentDataClass::findClazz, 0);
+        }
+
+        private static Class<?> findClazz(List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> s.isPublic() && !s.isInterface() && !s.isAbstract()
+                            && s.hasFieldType("int")
+                            && s.hasFieldType("java.util.List")
+                            && s.hasFieldType("android.content.Intent")
+                            && s.hasFieldType("java.lang.String")
+                            && s.hasFieldType("long")
+                            && s.hasFieldType("boolean")))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(m -> !Modifier.isInterface(m.getModifiers()))
+                    .filter(m -> !Modifier.isStatic(m.getModifiers()))
+                    .filter(m -> !Modifier.isAbstract(m.getModifiers()))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == int.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == List.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == Intent.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == String.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == long.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == boolean.class))
+                    .findFirst()
+                    .orElse(null);
         }
     }
 
@@ -479,35 +1574,46 @@ public class ClassHelper {
      * 广告
      */
     public static class Ad {
-        private static Class<?> adClazz;
-        private static Class<?> clazz;
+        static Pattern[] getPatterns() {
+            return new Pattern[]{
+                    Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.ad\\.[a-z]$")
+            };
+        }
 
         public static Class<?> getClazz() {
-            if (clazz == null) {
-                adClazz = getClassByXposed("com.netease.cloudmusic.meta.Ad");
-                try {
-                    Pattern pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.module\\.ad\\.[a-z]$");
-                    List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(m -> !Modifier.isInterface(m.getModifiers()))
-                            .filter(m -> !Modifier.isStatic(m.getModifiers()))
-                            .filter(m -> !Modifier.isAbstract(m.getModifiers()))
-                            .filter(c -> Stream.of(c.getDeclaredMethods()).anyMatch(m -> m.getReturnType().getName().contains("VideoAdInfo")))
-                            .filter(c -> Stream.of(c.getDeclaredMethods()).anyMatch(m -> m.getReturnType() == adClazz))
-                            .findFirst()
-                            .get();
-                } catch (NoSuchElementException e) {
-                    e.printStackTrace();
-                }
-            }
-            return clazz;
+            return awaitClass(getClazzAsync());
+        }
+
+        public static ListenableFuture<Class<?>> getClazzAsync() {
+            return resolveClass(null, "Ad", getPatterns(), Collections.reverseOrder(), Ad::findClazz, 0);
         }
 
-        public static List<Method> getAdMethod() {
+        /**
+         * 会在多个线程上分段并行调用，只使用局部变量
+         */
+        private static Class<?> findClazz(List<String> list) {
+            final Class<?> adClazz = getClassByXposed("com.netease.cloudmusic.meta.Ad");
+            return Stream.of(list)
+                    .filter(matchSignature(s -> s.isPublic() && !s.isInterface() && !s.isAbstract()
+                            && s.hasMethod(m -> m.getReturnType().contains("VideoAdInfo"))
+                            && s.hasMethod(m -> m.getReturnType().equals(adClazz.getName()))))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(m -> !Modifier.isInterface(m.getModifiers()))
+                    .filter(m -> !Modifier.isStatic(m.getModifiers()))
+                    .filter(m -> !Modifier.isAbstract(m.getModifiers()))
+                    .filter(c -> Stream.of(getDeclaredMethods(c)).anyMatch(m -> m.getReturnType().getName().contains("VideoAdInfo")))
+                    .filter(c -> Stream.of(getDeclaredMethods(c)).anyMatch(m -> m.getReturnType() == adClazz))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        public static List<Method> getAdMethod(Class<?> adClass) {
+            List<Method> cacheMethodList = targetCache.getMethods("Ad.methods");
+            if (cacheMethodList != null)
+                return cacheMethodList;
             try {
-                List<Method> methodList = Arrays.asList(getClazz().getDeclaredMethods());
+                List<Method> methodList = Arrays.asList(getDeclaredMethods(adClass));
                 List<Method> hookMethodList = Stream.of(methodList)
                         .filter(m -> m.getReturnType().getName().contains("com.netease.cloudmusic.meta"))
                         .filter(m -> Stream.of(m.getParameterTypes()).anyMatch(c -> c == JSONObject.class))
@@ -516,6 +1622,7 @@ public class ClassHelper {
                         .filter(m -> Stream.of(m.getParameterTypes()).anyMatch(c -> c.getName().contains("com.netease.cloudmusic.meta")))
                         .filter(m -> Stream.of(m.getParameterTypes()).anyMatch(c -> c == JSONObject.class))
                         .toList());
+                targetCache.putMethods("Ad.methods", hookMethodList);
                 return hookMethodList;
             } catch (Exception e) {
                 return null;
@@ -524,7 +1631,6 @@ public class ClassHelper {
     }
 
     public static class OKHttp3Response {
-        private static Class<?> clazz;
 
         final Object okHttp3Response;
 
@@ -532,36 +1638,45 @@ public class ClassHelper {
             this.okHttp3Response = okHttp3Response;
         }
 
+        static Pattern[] getPatterns() {
+            return new Pattern[]{Pattern.compile("^okhttp3\\.[a-zA-Z]{1,8}$")};
+        }
+
         static Class<?> getClazz(Context context) {
-            if (clazz == null) {
-                Pattern pattern = Pattern.compile("^okhttp3\\.[a-zA-Z]{1,8}$");
-                List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
+            return awaitClass(getClazzAsync(context));
+        }
 
-                try {
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> !Modifier.isAbstract(c.getModifiers()))
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(c -> Modifier.isFinal(c.getModifiers()))
-                            .filter(c -> c.getInterfaces().length == 1)
-                            .filter(c -> c.getInterfaces()[0] == Closeable.class)
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == int.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == String.class))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == long.class))
-                            .findFirst()
-                            .get();
-                } catch (Exception e) {
-                    MessageHelper.sendNotification(context, MessageHelper.coreClassNotFoundCode);
-                }
-            }
-            return clazz;
+        static ListenableFuture<Class<?>> getClazzAsync(Context context) {
+            return resolveClass(context, "OKHttp3Response", getPatterns(), Collections.reverseOrder(), OKHttp3Response::findClazz, MessageHelper.coreClassNotFoundCode);
+        }
+
+        private static Class<?> findClazz(List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> !s.isAbstract() && s.isPublic() && s.isFinal()
+                            && s.getInterfaces().size() == 1
+                            && "java.io.Closeable".equals(s.getInterfaces().get(0))
+                            && s.hasFieldType("int")
+                            && s.hasFieldType("java.lang.String")
+                            && s.hasFieldType("long")))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> !Modifier.isAbstract(c.getModifiers()))
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(c -> Modifier.isFinal(c.getModifiers()))
+                    .filter(c -> getInterfaces(c).length == 1)
+                    .filter(c -> getInterfaces(c)[0] == Closeable.class)
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == int.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == String.class))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == long.class))
+                    .findFirst()
+                    .orElse(null);
         }
 
         public Object getHeadersObject(Context context) throws IllegalAccessException, NullPointerException {
-            Field[] fields = getClazz(context).getDeclaredFields();
+            Field[] fields = getDeclaredFields(requireClass(getClazz(context), "OKHttp3Response"));
+            final Class<?> headerClazz = requireClass(OKHttp3Header.getClazz(context), "OKHttp3Header");
             Field dataField = Stream.of(fields)
-                    .filter(f -> Stream.of(f.getType()).anyMatch(pf -> pf == OKHttp3Header.getClazz(context)))
-                    .filter(f -> Stream.of(f.getType().getDeclaredFields()).anyMatch(pf -> pf.getType() == String[].class))
+                    .filter(f -> f.getType() == headerClazz)
+                    .filter(f -> Stream.of(getDeclaredFields(f.getType())).anyMatch(pf -> pf.getType() == String[].class))
                     .findFirst().get();
 
             dataField.setAccessible(true);
@@ -570,7 +1685,6 @@ public class ClassHelper {
     }
 
     public static class OKHttp3Header {
-        private static Class<?> clazz;
 
         final Object okHttp3Header;
 
@@ -578,29 +1692,32 @@ public class ClassHelper {
             this.okHttp3Header = okHttp3Header;
         }
 
+        static Pattern[] getPatterns() {
+            return new Pattern[]{Pattern.compile("^okhttp3\\.[a-zA-Z]{1,7}$")};
+        }
+
         static Class<?> getClazz(Context context) {
-            if (clazz == null) {
-                Pattern pattern = Pattern.compile("^okhttp3\\.[a-zA-Z]{1,7}$");
-                List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
+            return awaitClass(getClazzAsync(context));
+        }
 
-                try {
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> !Modifier.isAbstract(c.getModifiers()))
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(c -> Modifier.isFinal(c.getModifiers()))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == String[].class))
-                            .findFirst()
-                            .get();
-                } catch (Exception e) {
-                    MessageHelper.sendNotification(context, MessageHelper.coreClassNotFoundCode);
-                }
-            }
-            return clazz;
+        static ListenableFuture<Class<?>> getClazzAsync(Context context) {
+            return resolveClass(context, "OKHttp3Header", getPatterns(), Collections.reverseOrder(), OKHttp3Header::findClazz, MessageHelper.coreClassNotFoundCode);
+        }
+
+        private static Class<?> findClazz(List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> !s.isAbstract() && s.isPublic() && s.isFinal() && s.hasFieldType("[Ljava.lang.String;")))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> !Modifier.isAbstract(c.getModifiers()))
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(c -> Modifier.isFinal(c.getModifiers()))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == String[].class))
+                    .findFirst()
+                    .orElse(null);
         }
 
         public String[] getHeaders(Context context) throws IllegalAccessException, NullPointerException {
-            Field[] fields = getClazz(context).getDeclaredFields();
+            Field[] fields = getDeclaredFields(requireClass(getClazz(context), "OKHttp3Header"));
             Field dataField = Stream.of(fields)
                     .filter(f -> Stream.of(f.getType()).anyMatch(pf -> pf == String[].class))
                     .findFirst().get();
@@ -614,8 +1731,9 @@ public class ClassHelper {
      * 获取请求返回
      */
     public static class HttpResponse {
-        private static Class<?> clazz;
         private static Method getResultMethod;
+        //响应对象与请求对象字段，第一次使用时查找，之后直接读取
+        private static Field responseObjectField, eapiField;
 
         final Object httpResponse;
 
@@ -623,68 +1741,95 @@ public class ClassHelper {
             this.httpResponse = httpResponse;
         }
 
+        static Pattern[] getPatterns() {
+            if (versionCode < 154)
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$")};
+            else
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$")};
+        }
+
         static Class<?> getClazz(Context context) {
-            if (clazz == null) {
-                Pattern pattern;
-                if (versionCode < 154)
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$");
-                else
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$");
-                List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
+            return awaitClass(getClazzAsync(context));
+        }
 
-                try {
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> !Modifier.isAbstract(c.getModifiers()))
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(c -> Modifier.isFinal(c.getModifiers()))
-                            .filter(c -> c.getSuperclass() == Object.class)
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == OKHttp3Response.getClazz(context)))
-                            .findFirst()
-                            .get();
-                } catch (Exception e) {
-                    MessageHelper.sendNotification(context, MessageHelper.coreClassNotFoundCode);
-                }
-            }
-            return clazz;
+        /**
+         * 依赖OKHttp3Response，等它查找完成后再查找，避免并行分块时读到尚未完成的结果而误判为找不到
+         */
+        public static ListenableFuture<Class<?>> getClazzAsync(Context context) {
+            return Futures.transformAsync(OKHttp3Response.getClazzAsync(context), responseClazz -> responseClazz == null
+                            ? Futures.<Class<?>>immediateFuture(null)
+                            : resolveClass(context, "HttpResponse", getPatterns(), Collections.reverseOrder(), list -> findClazz(responseClazz, list), MessageHelper.coreClassNotFoundCode),
+                    MoreExecutors.directExecutor());
         }
 
-        public Object getResponseObject(Context context) throws IllegalAccessException, NullPointerException {
-            Field[] fields = getClazz(context).getDeclaredFields();
-            Field dataField = Stream.of(fields)
-                    .filter(f -> Stream.of(f.getType().getInterfaces()).anyMatch(i -> i == Closeable.class))
-                    .filter(f -> Stream.of(f.getType().getDeclaredFields()).anyMatch(pf -> pf.getType().getName().startsWith("okhttp3")))
-                    .findFirst().get();
+        private static Class<?> findClazz(Class<?> responseClazz, List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> !s.isAbstract() && s.isPublic() && s.isFinal()
+                            && "java.lang.Object".equals(s.getSuperclass())
+                            && s.hasFieldType(responseClazz.getName())))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> !Modifier.isAbstract(c.getModifiers()))
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(c -> Modifier.isFinal(c.getModifiers()))
+                    .filter(c -> c.getSuperclass() == Object.class)
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == responseClazz))
+                    .findFirst()
+                    .orElse(null);
+        }
 
-            dataField.setAccessible(true);
-            return dataField.get(httpResponse);
+        public Object getResponseObject(Context context) throws IllegalAccessException, NullPointerException {
+            if (responseObjectField == null) {
+                Field field = targetCache.getField("HttpResponse.responseObject");
+                if (field == null) {
+                    Field[] fields = getDeclaredFields(requireClass(getClazz(context), "HttpResponse"));
+                    field = Stream.of(fields)
+                            .filter(f -> Stream.of(getInterfaces(f.getType())).anyMatch(i -> i == Closeable.class))
+                            .filter(f -> Stream.of(getDeclaredFields(f.getType())).anyMatch(pf -> pf.getType().getName().startsWith("okhttp3")))
+                            .findFirst().get();
+                    targetCache.putField("HttpResponse.responseObject", field);
+                }
+                field.setAccessible(true);
+                responseObjectField = field;
+            }
+            return responseObjectField.get(httpResponse);
         }
 
         public Object getEapi(Context context) throws IllegalAccessException, NullPointerException {
-            Field[] fields = getClazz(context).getDeclaredFields();
-            Field dataField = Stream.of(fields)
-                    .filter(c -> Modifier.isAbstract(c.getType().getModifiers()))
-                    .filter(c -> c.getType().getSuperclass() == Object.class)
-                    .filter(c -> Stream.of(c.getType().getDeclaredFields()).anyMatch(m -> m.getType().getName().startsWith("okhttp3")))
-                    .findFirst().get();
+            return getEapi(context, httpResponse);
+        }
 
-            dataField.setAccessible(true);
-            return dataField.get(httpResponse);
+        /**
+         * 读取响应对应的请求对象，每次响应都会调用，不创建HttpResponse
+         */
+        public static Object getEapi(Context context, Object httpResponse) throws IllegalAccessException, NullPointerException {
+            if (eapiField == null) {
+                Field field = targetCache.getField("HttpResponse.eapi");
+                if (field == null) {
+                    Field[] fields = getDeclaredFields(requireClass(getClazz(context), "HttpResponse"));
+                    field = Stream.of(fields)
+                            .filter(c -> Modifier.isAbstract(c.getType().getModifiers()))
+                            .filter(c -> c.getType().getSuperclass() == Object.class)
+                            .filter(c -> Stream.of(getDeclaredFields(c.getType())).anyMatch(m -> m.getType().getName().startsWith("okhttp3")))
+                            .findFirst().get();
+                    targetCache.putField("HttpResponse.eapi", field);
+                }
+                field.setAccessible(true);
+                eapiField = field;
+            }
+            return eapiField.get(httpResponse);
         }
 
-        public static Method getResultMethod(Context context) {
+        public static Method getResultMethod(Context context, Class<?> responseClass) {
+            if (getResultMethod == null)
+                getResultMethod = targetCache.getMethod("HttpResponse.result");
             if (getResultMethod == null) {
                 try {
-                    // 这里可能会抛出异常，或者 clazz 为空，建议添加判空逻辑
-                    // 但根据您的需求，我们专注于修复类查找逻辑
-                    Class<?> responseClass = getClazz(context);
-                    if (responseClass != null) {
-                        List<Method> methodList = Arrays.asList(responseClass.getDeclaredMethods());
-                        getResultMethod = Stream.of(methodList)
-                                .filter(m -> m.getExceptionTypes().length == 2)
-                                .findFirst()
-                                .get();
-                    }
+                    List<Method> methodList = Arrays.asList(getDeclaredMethods(responseClass));
+                    getResultMethod = Stream.of(methodList)
+                            .filter(m -> m.getExceptionTypes().length == 2)
+                            .findFirst()
+                            .get();
+                    targetCache.putMethod("HttpResponse.result", getResultMethod);
                 } catch (Exception e) {
                     MessageHelper.sendNotification(context, MessageHelper.coreClassNotFoundCode);
                 }
@@ -697,36 +1842,47 @@ public class ClassHelper {
      * 获取请求URL
      */
     public static class HttpUrl {
-        private static Class<?> clazz;
+        private static Field uriField;
+
+        static Pattern[] getPatterns() {
+            if (versionCode < 154)
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$")};
+            else
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$")};
+        }
 
         static Class<?> getClazz(Context context) {
-            if (clazz == null) {
-                Pattern pattern;
-                if (versionCode < 154)
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$");
-                else
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$");
-                List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
+            return awaitClass(getClazzAsync(context));
+        }
 
-                try {
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> Modifier.isAbstract(c.getModifiers()))
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(c -> c.getSuperclass() == Object.class)
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType().getName().startsWith("okhttp3")))
-                            .findFirst()
-                            .get();
-                } catch (Exception e) {
-                    MessageHelper.sendNotification(context, MessageHelper.coreClassNotFoundCode);
-                }
-            }
-            return clazz;
+        static ListenableFuture<Class<?>> getClazzAsync(Context context) {
+            return resolveClass(context, "HttpUrl", getPatterns(), Collections.reverseOrder(), HttpUrl::findClazz, MessageHelper.coreClassNotFoundCode);
+        }
+
+        private static Class<?> findClazz(List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> s.isAbstract() && s.isPublic()
+                            && "java.lang.Object".equals(s.getSuperclass())
+                            && s.hasField(t -> t.startsWith("okhttp3"))))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> Modifier.isAbstract(c.getModifiers()))
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(c -> c.getSuperclass() == Object.class)
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType().getName().startsWith("okhttp3")))
+                    .findFirst()
+                    .orElse(null);
         }
 
         public static Uri getUri(Context context, Object eapi) throws IllegalAccessException, NullPointerException {
-            Field uriField = XposedHelpers.findFirstFieldByExactType(getClazz(context), Uri.class);
-            uriField.setAccessible(true);
+            if (uriField == null) {
+                Field field = targetCache.getField("HttpUrl.uri");
+                if (field == null) {
+                    field = XposedHelpers.findFirstFieldByExactType(requireClass(getClazz(context), "HttpUrl"), Uri.class);
+                    targetCache.putField("HttpUrl.uri", field);
+                }
+                field.setAccessible(true);
+                uriField = field;
+            }
             return (Uri) uriField.get(eapi);
         }
     }
@@ -735,48 +1891,60 @@ public class ClassHelper {
      * 获取请求参数
      */
     public static class HttpParams {
-        private static Class<?> clazz;
         private static Field paramsMap;
 
+        static Pattern[] getPatterns() {
+            if (versionCode < 154)
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$")};
+            else
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$")};
+        }
+
         static Class<?> getClazz(Context context) {
-            if (clazz == null) {
-                Pattern pattern;
-                if (versionCode < 154)
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$");
-                else
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$");
-                List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
+            return awaitClass(getClazzAsync(context));
+        }
 
-                try {
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> Stream.of(c.getInterfaces()).anyMatch(i -> i == Serializable.class))
-                            .filter(c -> !Modifier.isAbstract(c.getModifiers()))
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(c -> Stream.of(c.getDeclaredFields()).anyMatch(m -> m.getType() == LinkedHashMap.class))
-                            .findFirst()
-                            .get();
-                } catch (Exception e) {
-                    MessageHelper.sendNotification(context, MessageHelper.coreClassNotFoundCode);
-                }
-            }
-            return clazz;
+        static ListenableFuture<Class<?>> getClazzAsync(Context context) {
+            return resolveClass(context, "HttpParams", getPatterns(), Collections.reverseOrder(), HttpParams::findClazz, MessageHelper.coreClassNotFoundCode);
+        }
+
+        private static Class<?> findClazz(List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> s.getInterfaces().contains("java.io.Serializable")
+                            && !s.isAbstract() && s.isPublic()
+                            && s.hasFieldType("java.util.LinkedHashMap")))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> Stream.of(getInterfaces(c)).anyMatch(i -> i == Serializable.class))
+                    .filter(c -> !Modifier.isAbstract(c.getModifiers()))
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(c -> Stream.of(getDeclaredFields(c)).anyMatch(m -> m.getType() == LinkedHashMap.class))
+                    .findFirst()
+                    .orElse(null);
         }
 
         static Field getParamsMapField(Context context) {
             if (paramsMap == null) {
-                Field[] fields = getClazz(context).getDeclaredFields();
-                paramsMap = Stream.of(fields)
-                        .filter(c -> Stream.of(c.getType()).anyMatch(m -> m == LinkedHashMap.class))
-                        .findFirst().get();
-                paramsMap.setAccessible(true);
+                Field field = targetCache.getField("HttpParams.paramsMap");
+                if (field == null) {
+                    Field[] fields = getDeclaredFields(requireClass(getClazz(context), "HttpParams"));
+                    field = Stream.of(fields)
+                            .filter(c -> Stream.of(c.getType()).anyMatch(m -> m == LinkedHashMap.class))
+                            .findFirst().get();
+                    targetCache.putField("HttpParams.paramsMap", field);
+                }
+                field.setAccessible(true);
+                paramsMap = field;
             }
             return paramsMap;
         }
 
         public static LinkedHashMap<String, String> getParams(Context context, Object eapi) throws IllegalAccessException, NullPointerException {
-            List<Method> list = new ArrayList<>(Arrays.asList(findMethodsByExactParameters(eapi.getClass(), getClazz(context))));
-            if (list != null && list.size() != 0) {
+            //返回类型为null时会匹配任意方法，没有取到类时不查找
+            Class<?> paramsClass = getClazz(context);
+            if (paramsClass == null)
+                return new LinkedHashMap<>();
+            List<Method> list = new ArrayList<>(Arrays.asList(findMethodsByExactParameters(eapi.getClass(), paramsClass)));
+            if (list.size() != 0) {
                 Object params = XposedHelpers.callMethod(eapi, list.get(0).getName());
                 LinkedHashMap<String, String> map = (LinkedHashMap<String, String>) getParamsMapField(context).get(params);
                 Uri uri = HttpUrl.getUri(context, eapi);
@@ -794,42 +1962,50 @@ public class ClassHelper {
      * 拦截器
      */
     public static class HttpInterceptor {
-        private static Class<?> clazz;
         private static List<Method> methodList;
 
+        static Pattern[] getPatterns() {
+            if (versionCode < 154)
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]")};
+            else
+                return new Pattern[]{Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]")};
+        }
+
         static Class<?> getClazz(Context context) {
-            if (clazz == null) {
-                Pattern pattern;
-                if (versionCode < 154)
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]");
-                else
-                    pattern = Pattern.compile("^com\\.netease\\.cloudmusic\\.network\\.[a-z]");
-                try {
-                    List<String> list = ClassHelper.getFilteredClasses(pattern, Collections.reverseOrder());
-                    clazz = Stream.of(list)
-                            .map(ClassHelper::getClassByXposed)
-                            .filter(c -> c.getInterfaces().length == 1)
-                            .filter(c -> Stream.of(c.getInterfaces()).anyMatch(i -> i.getName().contains("Interceptor")))
-                            .filter(c -> !Modifier.isAbstract(c.getModifiers()))
-                            .filter(c -> Modifier.isPublic(c.getModifiers()))
-                            .filter(c -> Stream.of(c.getDeclaredMethods()).anyMatch(m -> m.getReturnType().getName().contains("Pair")))
-                            .findFirst()
-                            .get();
-                } catch (Exception e) {
-                    MessageHelper.sendNotification(context, MessageHelper.coreClassNotFoundCode);
-                }
-            }
-            return clazz;
+            return awaitClass(getClazzAsync(context));
+        }
+
+        public static ListenableFuture<Class<?>> getClazzAsync(Context context) {
+            return resolveClass(context, "HttpInterceptor", getPatterns(), Collections.reverseOrder(), HttpInterceptor::findClazz, MessageHelper.coreClassNotFoundCode);
+        }
+
+        private static Class<?> findClazz(List<String> list) {
+            return Stream.of(list)
+                    .filter(matchSignature(s -> s.getInterfaces().size() == 1
+                            && s.getInterfaces().get(0).contains("Interceptor")
+                            && !s.isAbstract() && s.isPublic()
+                            && s.hasMethod(m -> m.getReturnType().contains("Pair"))))
+                    .map(ClassHelper::getClassByXposed)
+                    .filter(c -> getInterfaces(c).length == 1)
+                    .filter(c -> Stream.of(getInterfaces(c)).anyMatch(i -> i.getName().contains("Interceptor")))
+                    .filter(c -> !Modifier.isAbstract(c.getModifiers()))
+                    .filter(c -> Modifier.isPublic(c.getModifiers()))
+                    .filter(c -> Stream.of(getDeclaredMethods(c)).anyMatch(m -> m.getReturnType().getName().contains("Pair")))
+                    .findFirst()
+                    .orElse(null);
         }
 
-        public static List<Method> getMethodList(Context context) {
+        public static List<Method> getMethodList(Context context, Class<?> interceptorClass) {
+            if (methodList == null)
+                methodList = targetCache.getMethods("HttpInterceptor.methods");
             if (methodList == null) {
                 methodList = new ArrayList<>();
-                methodList.addAll(Stream.of(getClazz(context).getDeclaredMethods())
+                methodList.addAll(Stream.of(getDeclaredMethods(interceptorClass))
                         .filter(m -> m.getExceptionTypes().length == 1)
                         .filter(m -> m.getParameterTypes().length == 5)
                         .filter(m -> m.getReturnType().getName().contains("Response"))
                         .toList());
+                targetCache.putMethods("HttpInterceptor.methods", methodList);
             }
             return methodList;
         }
@@ -0,0 +1,97 @@
+package com.raincat.dolby_beta.helper;
+
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : batch接口分发
+ *     version: 1.0
+ * </pre>
+ * batch响应以子接口路径为键打包了多个子接口的结果。各子接口改写器声明自己负责的子接口，
+ * 改写时先流式扫描一遍顶层键（跳过值，不建树），没有已注册的子接口时直接返回原文；
+ * 有时只解析一次，依次交给对应的改写器，任一改写器有改动才重新序列化。
+ */
+public class EAPIBatchRouter {
+    private final Map<String, Rewriter> rewriterMap = new LinkedHashMap<>();
+
+    public EAPIBatchRouter register(Rewriter rewriter) {
+        for (String api : rewriter.getApis()) {
+            Rewriter old = rewriterMap.put(api, rewriter);
+            if (old != null)
+                throw new IllegalStateException("api " + api + " is already owned by " + old.getClass().getSimpleName());
+        }
+        return this;
+    }
+
+    public String rewrite(String original) throws JSONException {
+        if (!hasRegisteredApi(original))
+            return original;
+        JSONObject batch = new JSONObject(original);
+        return rewrite(batch) ? batch.toString() : original;
+    }
+
+    /**
+     * 在已解析的batch上改写，单个子接口改写失败不影响其他子接口
+     *
+     * @return 是否有改动
+     */
+    public boolean rewrite(JSONObject batch) {
+        boolean changed = false;
+        for (Map.Entry<String, Rewriter> entry : rewriterMap.entrySet()) {
+            if (batch.isNull(entry.getKey()))
+                continue;
+            try {
+                changed |= entry.getValue().rewrite(batch, entry.getKey());
+            } catch (JSONException e) {
+                XposedBridge.log("DolbyBeta: rewrite batch " + entry.getKey() + " failed: " + e.getMessage());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 响应不是对象或不是合法JSON时视为没有已注册的子接口，原文交回
+     */
+    private boolean hasRegisteredApi(String original) {
+        JsonReader reader = new JsonReader(new StringReader(original));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (rewriterMap.containsKey(reader.nextName()))
+                    return true;
+                reader.skipValue();
+            }
+        } catch (IllegalStateException | IOException e) {
+            XposedBridge.log("DolbyBeta: batch body is not a JSON object: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 子接口改写器
+     */
+    public interface Rewriter {
+        /**
+         * 负责的子接口路径，如/api/v1/content/exposure/comment/banner/get
+         */
+        String[] getApis();
+
+        /**
+         * @param batch 整个batch响应，可读取或改写同一batch中的其他子接口
+         * @param api   本次分发的子接口
+         * @return 是否有改动
+         */
+        boolean rewrite(JSONObject batch, String api) throws JSONException;
+    }
+}
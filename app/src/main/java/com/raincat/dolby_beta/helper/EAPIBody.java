@@ -0,0 +1,91 @@
+package com.raincat.dolby_beta.helper;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 接口响应
+ *     version: 1.0
+ * </pre>
+ * 响应可能是字符串或JSONObject。改写器按isTree()选择改写方式：JSONObject直接原地修改后调用markChanged()，
+ * 字符串走流式改写后调用setText()。只有改写器明确需要另一种形式时才转换，并缓存转换结果，
+ * 最后按原来的类型交回，没有改动时不交回。
+ */
+public class EAPIBody {
+    //原始结果是否为JSONObject
+    private final boolean treeResult;
+    private JSONObject tree;
+    private String text;
+    private boolean changed = false;
+
+    public EAPIBody(Object result) {
+        treeResult = result instanceof JSONObject;
+        if (treeResult)
+            tree = (JSONObject) result;
+        else
+            text = result.toString();
+    }
+
+    /**
+     * 当前是否持有JSONObject
+     */
+    public boolean isTree() {
+        return tree != null;
+    }
+
+    public boolean isEmpty() {
+        return tree == null && text.isEmpty();
+    }
+
+    /**
+     * 取得JSONObject，当前为字符串时解析一次。原地修改后需调用markChanged()
+     */
+    public JSONObject getTree() throws JSONException {
+        if (tree == null)
+            tree = new JSONObject(text);
+        return tree;
+    }
+
+    /**
+     * 取得字符串，当前为JSONObject时序列化一次并缓存到下次修改
+     */
+    public String getText() {
+        if (text == null)
+            text = tree.toString();
+        return text;
+    }
+
+    /**
+     * 替换为新的字符串，传回getText()得到的同一个字符串视为没有改动
+     */
+    public void setText(String newText) {
+        if (newText == text)
+            return;
+        text = newText;
+        tree = null;
+        changed = true;
+    }
+
+    /**
+     * JSONObject已被原地修改
+     */
+    public void markChanged() {
+        text = null;
+        changed = true;
+    }
+
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * 按原来的类型交回结果
+     */
+    public Object toResult() throws JSONException {
+        if (treeResult)
+            return tree != null ? tree : new JSONObject(text);
+        return getText();
+    }
+}
@@ -1,17 +1,32 @@
 package com.raincat.dolby_beta.helper;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.ndktools.javamd5.core.MD5;
 import com.raincat.dolby_beta.model.CloudHeader;
-import com.raincat.dolby_beta.model.NeteaseSongListBean;
 import com.raincat.dolby_beta.net.Http;
 import com.raincat.dolby_beta.utils.NeteaseAES2;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -25,31 +40,198 @@ import java.util.regex.Pattern;
  */
 
 public class EAPIHelper {
-    private static final Gson gson = new Gson();
+    //写出暂存的字段，保留原有的null，不转义=、&等字符
+    private static final Gson gson = new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+    //播放与下载接口中需要改写的歌曲字段
+    private static final Set<String> SONG_FIELDS = new HashSet<>(Arrays.asList("fee", "flag", "payed", "freeTrialInfo", "url"));
 
     /**
-     * 解除下载加密
+     * 解除下载加密，播放与下载接口共用。
+     * 按token流式改写，不绑定为对象：data为数组（播放）或单个对象（下载）时都保持原有结构，
+     * 只改写每首歌的fee、flag、payed、freeTrialInfo与url的参数，其余字段原样写出
      */
-    public static String modifyPlayer(String original) {
-        NeteaseSongListBean listBean = gson.fromJson(original, NeteaseSongListBean.class);
-
-        NeteaseSongListBean modifyListBean = new NeteaseSongListBean();
-        modifyListBean.setCode(200);
-        modifyListBean.setData(new ArrayList<>());
-        for (NeteaseSongListBean.DataBean dataBean : listBean.getData()) {
-            //flag与8非0为云盘歌曲
-            if ((dataBean.getFlag() & 0x8) == 0) {
-
-                dataBean.setFee(0);
-                dataBean.setFlag(0);
-                dataBean.setPayed(0);
-                dataBean.setFreeTrialInfo(null);
-                if (dataBean.getUrl() != null && dataBean.getUrl().contains("?"))
-                    dataBean.setUrl(dataBean.getUrl().substring(0, dataBean.getUrl().indexOf("?")));
+    public static String modifyPlayer(String original) throws IOException {
+        StringWriter out = new StringWriter(original.length() + 16);
+        JsonReader reader = new JsonReader(new StringReader(original));
+        JsonWriter writer = new JsonWriter(out);
+        //url中的=、&原样写出
+        writer.setHtmlSafe(false);
+        boolean hasCode = false;
+        reader.beginObject();
+        writer.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            writer.name(name);
+            if (name.equals("code")) {
+                reader.skipValue();
+                writer.value(200);
+                hasCode = true;
+            } else if (name.equals("data") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext())
+                    modifySong(reader, writer);
+                reader.endArray();
+                writer.endArray();
+            } else if (name.equals("data"))
+                modifySong(reader, writer);
+            else
+                copyValue(reader, writer);
+        }
+        if (!hasCode)
+            writer.name("code").value(200);
+        reader.endObject();
+        writer.endObject();
+        writer.flush();
+        return out.toString();
+    }
+
+    /**
+     * 在已解析的响应上原地改写，规则与字符串版本相同
+     */
+    public static void modifyPlayer(JSONObject original) throws JSONException {
+        original.put("code", 200);
+        Object data = original.opt("data");
+        if (data instanceof JSONArray) {
+            JSONArray array = (JSONArray) data;
+            for (int i = 0; i < array.length(); i++)
+                if (array.opt(i) instanceof JSONObject)
+                    modifySong(array.getJSONObject(i));
+        } else if (data instanceof JSONObject)
+            modifySong((JSONObject) data);
+    }
+
+    private static void modifySong(JSONObject song) throws JSONException {
+        if ((song.optLong("flag") & 0x8) != 0)
+            return;
+        for (String name : new String[]{"fee", "flag", "payed"})
+            if (song.has(name))
+                song.put(name, 0);
+        if (song.has("freeTrialInfo"))
+            song.put("freeTrialInfo", JSONObject.NULL);
+        Object url = song.opt("url");
+        if (url instanceof String && ((String) url).contains("?"))
+            song.put("url", ((String) url).substring(0, ((String) url).indexOf("?")));
+    }
+
+    /**
+     * 改写单首歌。flag与8非0为云盘歌曲，保持原样；
+     * 读到flag之前遇到待改写字段时，从该字段起到flag之前的字段都先暂存，读到flag后按是否云盘依次写出，
+     * 字段顺序与原来一致；没有flag时按非云盘处理
+     */
+    private static void modifySong(JsonReader reader, JsonWriter writer) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            copyValue(reader, writer);
+            return;
+        }
+        reader.beginObject();
+        writer.beginObject();
+        Map<String, JsonElement> pending = null;
+        //-1为尚未读到flag
+        int cloud = -1;
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            boolean songField = SONG_FIELDS.contains(name);
+            if (cloud < 0 && !name.equals("flag") && (songField || pending != null)) {
+                if (pending == null)
+                    pending = new LinkedHashMap<>();
+                pending.put(name, JsonParser.parseReader(reader));
+                continue;
+            }
+            if (!songField) {
+                writer.name(name);
+                copyValue(reader, writer);
+                continue;
+            }
+            JsonElement value = JsonParser.parseReader(reader);
+            if (name.equals("flag")) {
+                cloud = value.isJsonPrimitive() && (value.getAsLong() & 0x8) != 0 ? 1 : 0;
+                writePending(writer, pending, cloud == 1);
+                pending = null;
+            }
+            writeSongField(writer, name, value, cloud == 1);
+        }
+        writePending(writer, pending, false);
+        reader.endObject();
+        writer.endObject();
+    }
+
+    private static void writePending(JsonWriter writer, Map<String, JsonElement> pending, boolean cloud) throws IOException {
+        if (pending == null)
+            return;
+        for (Map.Entry<String, JsonElement> entry : pending.entrySet()) {
+            if (SONG_FIELDS.contains(entry.getKey()))
+                writeSongField(writer, entry.getKey(), entry.getValue(), cloud);
+            else {
+                writer.name(entry.getKey());
+                gson.toJson(entry.getValue(), writer);
             }
-            modifyListBean.getData().add(dataBean);
         }
-        return gson.toJson(modifyListBean);
+    }
+
+    private static void writeSongField(JsonWriter writer, String name, JsonElement value, boolean cloud) throws IOException {
+        writer.name(name);
+        if (!cloud) {
+            switch (name) {
+                case "fee":
+                case "flag":
+                case "payed":
+                    writer.value(0);
+                    return;
+                case "freeTrialInfo":
+                    writer.nullValue();
+                    return;
+                case "url":
+                    String url = value.isJsonPrimitive() ? value.getAsString() : null;
+                    if (url != null && url.contains("?")) {
+                        writer.value(url.substring(0, url.indexOf("?")));
+                        return;
+                    }
+                    break;
+            }
+        }
+        gson.toJson(value, writer);
+    }
+
+    /**
+     * 原样复制一个值，数字保留原有写法
+     */
+    private static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext())
+                    copyValue(reader, writer);
+                reader.endArray();
+                writer.endArray();
+                break;
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                throw new IOException("unexpected " + reader.peek() + " at " + reader.getPath());
+        }
     }
 
     /**
@@ -153,6 +335,45 @@ public class EAPIHelper {
         return originalContent;
     }
 
+    /**
+     * 在已解析的响应上原地改写，所有整数type改为1
+     *
+     * @return 是否有改动
+     */
+    public static boolean modifyEffect(JSONObject original) throws JSONException {
+        return replaceInt(original, "type", null, 1);
+    }
+
+    /**
+     * 递归替换名为key的整数字段
+     *
+     * @param from 只替换等于from的值，为null时替换所有非负整数
+     * @return 是否有改动
+     */
+    public static boolean replaceInt(Object node, String key, Integer from, int to) throws JSONException {
+        boolean changed = false;
+        if (node instanceof JSONObject) {
+            JSONObject object = (JSONObject) node;
+            for (Iterator<String> keys = object.keys(); keys.hasNext(); ) {
+                String name = keys.next();
+                Object value = object.get(name);
+                if (name.equals(key) && (value instanceof Integer || value instanceof Long)) {
+                    long number = ((Number) value).longValue();
+                    if (from == null ? number >= 0 && number != to : number == from) {
+                        object.put(name, to);
+                        changed = true;
+                    }
+                } else
+                    changed |= replaceInt(value, key, from, to);
+            }
+        } else if (node instanceof JSONArray) {
+            JSONArray array = (JSONArray) node;
+            for (int i = 0; i < array.length(); i++)
+                changed |= replaceInt(array.get(i), key, from, to);
+        }
+        return changed;
+    }
+
     public static JSONObject decrypt(String params) throws Exception {
         params = NeteaseAES2.Decrypt(params);
         if (params != null && params.length() != 0) {
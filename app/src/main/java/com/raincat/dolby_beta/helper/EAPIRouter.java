@@ -0,0 +1,114 @@
+package com.raincat.dolby_beta.helper;
+
+import android.content.Context;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 接口改写路由
+ *     version: 1.0
+ * </pre>
+ * 各改写器声明自己负责的接口路径（/eapi/之后的部分），注册时按路径分段编译为一棵前缀树。
+ * 以*结尾的路由为前缀路由，按整段匹配，如song/like*匹配song/like与song/like/get，不匹配song/likes；
+ * 其余为精确路由。查找时只遍历一次路径，没有对应改写器的接口不会读取响应内容。
+ * 路径以v1、v2这类版本段开头且整体没有匹配时，跳过版本段再匹配一次。
+ */
+public class EAPIRouter {
+    private final Node root = new Node();
+
+    public EAPIRouter register(Rewriter rewriter) {
+        for (String route : rewriter.getRoutes()) {
+            boolean prefix = route.endsWith("*");
+            String path = prefix ? route.substring(0, route.length() - 1) : route;
+            Node node = root;
+            for (String segment : path.split("/")) {
+                if (segment.isEmpty())
+                    continue;
+                Node child = node.children.get(segment);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(segment, child);
+                }
+                node = child;
+            }
+            Rewriter old = prefix ? node.prefixRewriter : node.exactRewriter;
+            if (old != null)
+                throw new IllegalStateException("route " + route + " is already owned by " + old.getClass().getSimpleName());
+            if (prefix)
+                node.prefixRewriter = rewriter;
+            else
+                node.exactRewriter = rewriter;
+        }
+        return this;
+    }
+
+    /**
+     * 查找路径对应的改写器，精确路由优先，其次为最长的前缀路由，没有时返回null
+     *
+     * @param start 接口路径在path中的起始位置
+     */
+    public Rewriter match(String path, int start) {
+        Rewriter rewriter = match(root, path, start);
+        if (rewriter == null) {
+            int end = segmentEnd(path, start);
+            if (isVersionSegment(path, start, end) && end < path.length())
+                rewriter = match(root, path, end + 1);
+        }
+        return rewriter;
+    }
+
+    private static Rewriter match(Node node, String path, int start) {
+        Rewriter prefixRewriter = node.prefixRewriter;
+        int position = start;
+        while (position < path.length()) {
+            int end = segmentEnd(path, position);
+            if (end > position) {
+                node = node.children.get(path.substring(position, end));
+                if (node == null)
+                    return prefixRewriter;
+                if (node.prefixRewriter != null)
+                    prefixRewriter = node.prefixRewriter;
+            }
+            position = end + 1;
+        }
+        return node.exactRewriter != null ? node.exactRewriter : prefixRewriter;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static boolean isVersionSegment(String path, int start, int end) {
+        if (end - start < 2 || path.charAt(start) != 'v')
+            return false;
+        for (int i = start + 1; i < end; i++)
+            if (!Character.isDigit(path.charAt(i)))
+                return false;
+        return true;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Rewriter exactRewriter, prefixRewriter;
+    }
+
+    /**
+     * 响应改写器
+     */
+    public interface Rewriter {
+        /**
+         * 负责的接口路径，以*结尾表示前缀
+         */
+        String[] getRoutes();
+
+        /**
+         * @param eapi 请求对象，用于读取请求参数
+         * @param body 响应，按body.isTree()选择原地改写或字符串改写，不需要改写时不做修改
+         */
+        void rewrite(Context context, Object eapi, EAPIBody body) throws Exception;
+    }
+}
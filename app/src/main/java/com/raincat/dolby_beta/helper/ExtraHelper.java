@@ -20,6 +20,14 @@ public class ExtraHelper {
     public static final String SCRIPT_STATUS = "script_status";
     //APP版本号
     public static final String APP_VERSION = "app_version";
+    //已在后台预建索引的网易云apk指纹
+    public static final String HOST_KEY = "host_key";
+    //后台预建进度，如“指纹 进程名 resolving”
+    public static final String PRECOMPUTE_STATUS = "precompute_status";
+    //后台预建耗时，如“指纹 scan=1200ms resolve=300ms”
+    public static final String PRECOMPUTE_TIME = "precompute_time";
+    //更新后主进程第一次启动时索引的来源，ready为已预建，scan为启动时才扫描
+    public static final String FIRST_LAUNCH = "first_launch";
 
     //用户id
     public static final String USER_ID = "user_id";
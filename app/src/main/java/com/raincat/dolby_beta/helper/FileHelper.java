@@ -2,18 +2,12 @@ package com.raincat.dolby_beta.helper;
 
 import android.content.res.AssetManager;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -82,54 +76,6 @@ public class FileHelper {
         return false;
     }
 
-    /**
-     * 从SD卡中读取一个文件
-     */
-    static List<String> readFileFromSD(String path) {
-        List<String> list = new ArrayList<>();
-        File file = new File(path);
-        if (!file.isDirectory()) {
-            try {
-                InputStream inputStream = new FileInputStream(file);
-                InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-                BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
-                String line;
-                while ((line = bufferedReader.readLine()) != null) {
-                    list.add(line);
-                }
-                inputStream.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-        return list;
-    }
-
-    /**
-     * 写入内容到一个文件
-     */
-    static void writeFileFromSD(String path, List<String> content) {
-        BufferedWriter out = null;
-        try {
-            File file = new File(path);
-            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), "utf-8"));
-            for (String s : content) {
-                out.write(s);
-                out.write("\n");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                if (out != null) {
-                    out.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
     /**
      * 复制文件
      */
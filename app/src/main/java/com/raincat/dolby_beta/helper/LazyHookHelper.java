@@ -0,0 +1,167 @@
+package com.raincat.dolby_beta.helper;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dalvik.system.BaseDexClassLoader;
+import de.robv.android.xposed.XC_MethodHook;
+import de.robv.android.xposed.XposedBridge;
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 延迟安装hook
+ *     version: 1.0
+ * </pre>
+ * 用户可能永远不会打开的页面不必在启动时解析与hook，登记触发类后：
+ * <pre>
+ *     hookOnClassLoaded   : 宿主ClassLoader第一次加载该类时回调，最迟在使用该类的页面创建时主动加载并回调
+ *     hookOnActivityCreated: 第一个该类的Activity实例化后、onCreate之前回调
+ * </pre>
+ * 每个回调只执行一次，类在登记时已加载则立即回调；没有待触发的登记时会卸载findClass与newActivity的hook。
+ * 宿主加载的每个类都会经过findClass，先不加锁判断是否为登记的类，命中时才加锁取出回调。
+ * 触发类可能整个进程都不会加载，findClass的hook最多保留FIND_CLASS_HOOK_TIME，之后剩余的触发类只在所在页面创建时触发，
+ * 此后加载类不再有额外开销；newActivity只在创建页面时调用，保留到登记的页面都创建过为止。
+ */
+public class LazyHookHelper {
+    //findClass的hook最多保留的时间
+    private static final long FIND_CLASS_HOOK_TIME = 60 * 1000;
+    //登记与取出在锁内进行，hook中不加锁判断是否命中
+    private static final Map<String, List<OnClassLoadedListener>> classListenerMap = new ConcurrentHashMap<>();
+    private static final Map<String, List<OnClassLoadedListener>> activityListenerMap = new ConcurrentHashMap<>();
+    //hook中不加锁读取
+    private static volatile ClassLoader hostClassLoader;
+    private static XC_MethodHook.Unhook findClassUnhook;
+    //findClass的hook已到期，不再安装
+    private static boolean findClassExpired = false;
+    private static XC_MethodHook.Unhook newActivityUnhook;
+
+    /**
+     * 宿主第一次加载className时回调，回调在加载该类的线程执行。
+     * 到那时类还没有加载过，或者findClass的hook已到期时，在activityName创建时主动加载className并回调
+     */
+    public static void hookOnClassLoaded(ClassLoader classLoader, String className, String activityName, OnClassLoadedListener listener) {
+        synchronized (LazyHookHelper.class) {
+            hostClassLoader = classLoader;
+            add(classListenerMap, className, listener);
+            if (findClassUnhook == null && !findClassExpired) {
+                new Handler(Looper.getMainLooper()).postDelayed(LazyHookHelper::expireFindClassHook, FIND_CLASS_HOOK_TIME);
+                findClassUnhook = XposedHelpers.findAndHookMethod(BaseDexClassLoader.class, "findClass", String.class, new XC_MethodHook() {
+                    @Override
+                    protected void afterHookedMethod(MethodHookParam param) throws Throwable {
+                        super.afterHookedMethod(param);
+                        String name = (String) param.args[0];
+                        if (param.thisObject == hostClassLoader && param.getResult() != null && name != null && classListenerMap.containsKey(name))
+                            dispatch((Class<?>) param.getResult(), take(classListenerMap, name));
+                    }
+                });
+            }
+        }
+        hookOnActivityCreated(classLoader, activityName, activityClass -> {
+            List<OnClassLoadedListener> listenerList = take(classListenerMap, className);
+            if (listenerList != null) {
+                Class<?> clazz = XposedHelpers.findClassIfExists(className, classLoader);
+                if (clazz != null)
+                    dispatch(clazz, listenerList);
+            }
+        });
+        //登记前已经加载过的类不会再走findClass
+        Class<?> clazz = findLoadedClass(classLoader, className);
+        if (clazz != null)
+            dispatch(clazz, take(classListenerMap, className));
+    }
+
+    /**
+     * 第一个activityName的实例创建后回调，此时onCreate尚未执行，回调中hook生命周期方法对该实例即生效
+     */
+    public static void hookOnActivityCreated(ClassLoader classLoader, String activityName, OnClassLoadedListener listener) {
+        synchronized (LazyHookHelper.class) {
+            hostClassLoader = classLoader;
+            add(activityListenerMap, activityName, listener);
+            if (newActivityUnhook == null)
+                newActivityUnhook = XposedHelpers.findAndHookMethod(Instrumentation.class, "newActivity",
+                        ClassLoader.class, String.class, Intent.class, new XC_MethodHook() {
+                            @Override
+                            protected void afterHookedMethod(MethodHookParam param) throws Throwable {
+                                super.afterHookedMethod(param);
+                                Activity activity = (Activity) param.getResult();
+                                if (activity != null && activityListenerMap.containsKey(activity.getClass().getName()))
+                                    dispatch(activity.getClass(), take(activityListenerMap, activity.getClass().getName()));
+                            }
+                        });
+        }
+    }
+
+    /**
+     * 卸载findClass的hook，剩余的触发类改由所在页面创建时触发
+     */
+    private static synchronized void expireFindClassHook() {
+        findClassExpired = true;
+        if (findClassUnhook != null) {
+            findClassUnhook.unhook();
+            findClassUnhook = null;
+            XposedBridge.log("DolbyBeta: " + classListenerMap.size() + " lazy class hooks left to their activities");
+        }
+    }
+
+    private static void add(Map<String, List<OnClassLoadedListener>> listenerMap, String className, OnClassLoadedListener listener) {
+        List<OnClassLoadedListener> listenerList = listenerMap.get(className);
+        if (listenerList == null) {
+            listenerList = new ArrayList<>();
+            listenerMap.put(className, listenerList);
+        }
+        listenerList.add(listener);
+    }
+
+    /**
+     * 取出并移除className的所有回调，保证每个回调只执行一次
+     */
+    private static synchronized List<OnClassLoadedListener> take(Map<String, List<OnClassLoadedListener>> listenerMap, String className) {
+        List<OnClassLoadedListener> listenerList = listenerMap.remove(className);
+        if (classListenerMap.isEmpty() && findClassUnhook != null) {
+            findClassUnhook.unhook();
+            findClassUnhook = null;
+        }
+        if (activityListenerMap.isEmpty() && newActivityUnhook != null) {
+            newActivityUnhook.unhook();
+            newActivityUnhook = null;
+        }
+        return listenerList;
+    }
+
+    /**
+     * 在锁外执行回调，单个回调出错不影响宿主加载类
+     */
+    private static void dispatch(Class<?> clazz, List<OnClassLoadedListener> listenerList) {
+        if (listenerList == null)
+            return;
+        for (OnClassLoadedListener listener : listenerList) {
+            try {
+                listener.onClassLoaded(clazz);
+            } catch (Throwable t) {
+                XposedBridge.log(t);
+            }
+        }
+    }
+
+    private static Class<?> findLoadedClass(ClassLoader classLoader, String className) {
+        try {
+            return (Class<?>) XposedHelpers.callMethod(classLoader, "findLoadedClass", className);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    public interface OnClassLoadedListener {
+        void onClassLoaded(Class<?> clazz);
+    }
+}
@@ -0,0 +1,146 @@
+package com.raincat.dolby_beta.helper;
+
+import android.text.TextUtils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 版本符号表
+ *     version: 1.0
+ * </pre>
+ * 各版本混淆后的类名、方法名与字段名记录在模块assets/symbols.json中，每个符号按versionCode分段，
+ * 查找时对分段起点二分。符号写作“类名#成员名”，只有成员名时写作“#成员名”。
+ * 表中没有覆盖的版本返回null，由调用方改用结构查找；该版本确定不存在此符号时返回空字符串。
+ */
+public class SymbolHelper {
+    private static final String SYMBOL_ENTRY = "assets/symbols.json";
+
+    private static Map<String, SymbolTable> symbolMap;
+    private static boolean loaded = false;
+
+    /**
+     * 查找symbolKey在versionCode下的符号
+     */
+    public static String getSymbol(String symbolKey, int versionCode) {
+        SymbolTable table = getSymbolMap().get(symbolKey);
+        return table == null ? null : table.get(versionCode);
+    }
+
+    /**
+     * 符号中的类名部分，只有成员名时返回空字符串
+     */
+    public static String getClassName(String symbol) {
+        int index = symbol.indexOf('#');
+        return index < 0 ? symbol : symbol.substring(0, index);
+    }
+
+    /**
+     * 符号中的成员名部分，没有成员名时返回空字符串
+     */
+    public static String getMemberName(String symbol) {
+        int index = symbol.indexOf('#');
+        return index < 0 ? "" : symbol.substring(index + 1);
+    }
+
+    /**
+     * 符号表是否读取成功。读取失败时所有符号都返回null，只有结构查找的hook会因此失效
+     */
+    public static boolean isLoaded() {
+        getSymbolMap();
+        return loaded;
+    }
+
+    private static synchronized Map<String, SymbolTable> getSymbolMap() {
+        if (symbolMap == null)
+            symbolMap = loadSymbolMap();
+        return symbolMap;
+    }
+
+    /**
+     * 从模块apk中读取符号表，读取失败时记录错误并返回空表，所有符号都改用结构查找
+     */
+    private static Map<String, SymbolTable> loadSymbolMap() {
+        Map<String, SymbolTable> map = new HashMap<>();
+        if (TextUtils.isEmpty(ScriptHelper.modulePath)) {
+            XposedBridge.log("DolbyBeta: load symbol table failed, module path unknown");
+            return map;
+        }
+        try (ZipFile zipFile = new ZipFile(ScriptHelper.modulePath)) {
+            ZipEntry entry = zipFile.getEntry(SYMBOL_ENTRY);
+            if (entry == null) {
+                XposedBridge.log("DolbyBeta: load symbol table failed, " + SYMBOL_ENTRY + " missing from " + ScriptHelper.modulePath);
+                return map;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (InputStream is = zipFile.getInputStream(entry)) {
+                int len;
+                byte[] buffer = new byte[8192];
+                while ((len = is.read(buffer, 0, buffer.length)) != -1)
+                    out.write(buffer, 0, len);
+            }
+            JSONObject root = new JSONObject(out.toString("UTF-8"));
+            for (Iterator<String> keys = root.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                map.put(key, new SymbolTable(root.getJSONArray(key)));
+            }
+            loaded = true;
+        } catch (Exception e) {
+            XposedBridge.log("DolbyBeta: load symbol table failed: " + e);
+            map.clear();
+        }
+        return map;
+    }
+
+    /**
+     * 单个符号的版本分段，按起点升序，分段之间可以有空隙
+     */
+    private static class SymbolTable {
+        private final int[] from;
+        private final int[] to;
+        private final String[] symbols;
+
+        SymbolTable(JSONArray array) throws Exception {
+            int size = array.length();
+            from = new int[size];
+            to = new int[size];
+            symbols = new String[size];
+            for (int i = 0; i < size; i++) {
+                JSONObject range = array.getJSONObject(i);
+                from[i] = range.getInt("from");
+                to[i] = range.optInt("to", Integer.MAX_VALUE);
+                symbols[i] = range.getString("symbol");
+                if (i > 0 && from[i] <= to[i - 1])
+                    throw new IllegalArgumentException("symbol ranges overlap at " + from[i]);
+            }
+        }
+
+        String get(int versionCode) {
+            //找到最后一个起点不大于versionCode的分段
+            int low = 0, high = from.length - 1, index = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (from[middle] <= versionCode) {
+                    index = middle;
+                    low = middle + 1;
+                } else
+                    high = middle - 1;
+            }
+            if (index < 0 || versionCode > to[index])
+                return null;
+            return symbols[index];
+        }
+    }
+}
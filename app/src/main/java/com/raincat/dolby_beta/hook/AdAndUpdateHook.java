@@ -5,6 +5,7 @@ import android.content.Context;
 import android.os.Bundle;
 
 import com.raincat.dolby_beta.helper.SettingHelper;
+import com.raincat.dolby_beta.helper.SymbolHelper;
 
 import java.lang.reflect.Field;
 
@@ -31,12 +32,18 @@ public class AdAndUpdateHook {
     private static String urlFieldString = "url";
 
     public AdAndUpdateHook(Context context, final int versionCode) {
-        if (versionCode < 138) {
-            okHttpClientClassString = "okhttp3.x";
-            newCallMethodString = "a";
-            httpUrlFieldString = "a";
-            urlFieldString = "j";
+        //okhttp的混淆名见符号表，表中没有的版本使用未混淆的名称
+        String newCallSymbol = SymbolHelper.getSymbol("okhttp.new_call", versionCode);
+        if (newCallSymbol != null) {
+            okHttpClientClassString = SymbolHelper.getClassName(newCallSymbol);
+            newCallMethodString = SymbolHelper.getMemberName(newCallSymbol);
         }
+        String requestUrlSymbol = SymbolHelper.getSymbol("okhttp.request_url", versionCode);
+        if (requestUrlSymbol != null)
+            httpUrlFieldString = SymbolHelper.getMemberName(requestUrlSymbol);
+        String httpUrlSymbol = SymbolHelper.getSymbol("okhttp.http_url_url", versionCode);
+        if (httpUrlSymbol != null)
+            urlFieldString = SymbolHelper.getMemberName(httpUrlSymbol);
 
         //去广告和升级
         Class<?> okHttpClientClass = findClassIfExists(okHttpClientClassString, context.getClassLoader());
@@ -23,8 +23,10 @@ import de.robv.android.xposed.XposedBridge;
 public class AdExtraHook {
     public AdExtraHook() {
         if (SettingHelper.getInstance().isEnable(SettingHelper.black_key)) {
-            List<Method> methods = ClassHelper.Ad.getAdMethod();
-            if (methods != null) {
+            ClassHelper.whenResolved(ClassHelper.Ad.getClazzAsync(), clazz -> {
+                List<Method> methods = ClassHelper.Ad.getAdMethod(clazz);
+                if (methods == null)
+                    return;
                 for (Method method : methods) {
                     XposedBridge.hookMethod(method, new XC_MethodHook() {
                         @Override
@@ -39,7 +41,7 @@ public class AdExtraHook {
                         }
                     });
                 }
-            }
+            });
         }
     }
 }
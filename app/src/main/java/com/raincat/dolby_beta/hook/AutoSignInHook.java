@@ -6,6 +6,7 @@ import android.widget.TextView;
 import com.raincat.dolby_beta.helper.ExtraHelper;
 import com.raincat.dolby_beta.helper.SettingHelper;
 import com.raincat.dolby_beta.helper.SignSongHelper;
+import com.raincat.dolby_beta.helper.SymbolHelper;
 import com.raincat.dolby_beta.net.Http;
 import com.raincat.dolby_beta.utils.Tools;
 
@@ -67,15 +68,27 @@ public class AutoSignInHook {
             findAndHookMethod(userProfileClass, "isMobileSign", XC_MethodReplacement.returnConstant(true));
         }
 
-        Class<?> mainDrawerClass = findClassIfExists("com.netease.cloudmusic.ui.MainDrawer", context.getClassLoader());
-        if (mainDrawerClass == null) {
-            mainDrawerClass = findClassIfExists("com.netease.cloudmusic.ui.l", context.getClassLoader());
-            methodInitDrawerHeader = "r";
-            valueDrawerUserSignIn = "t";
+        //侧边栏的混淆名见符号表，表中没有的版本按类名探测
+        Class<?> mainDrawerClass = null;
+        String headerSymbol = SymbolHelper.getSymbol("drawer.init_header", versionCode);
+        String signInSymbol = SymbolHelper.getSymbol("drawer.user_sign_in", versionCode);
+        if (headerSymbol != null && signInSymbol != null) {
+            if (!headerSymbol.isEmpty() && !signInSymbol.isEmpty()) {
+                mainDrawerClass = findClassIfExists(SymbolHelper.getClassName(headerSymbol), context.getClassLoader());
+                methodInitDrawerHeader = SymbolHelper.getMemberName(headerSymbol);
+                valueDrawerUserSignIn = SymbolHelper.getMemberName(signInSymbol);
+            }
+        } else if (versionCode < 7003000) {
+            mainDrawerClass = findClassIfExists("com.netease.cloudmusic.ui.MainDrawer", context.getClassLoader());
+            if (mainDrawerClass == null) {
+                mainDrawerClass = findClassIfExists("com.netease.cloudmusic.ui.l", context.getClassLoader());
+                methodInitDrawerHeader = "r";
+                valueDrawerUserSignIn = "t";
+            }
         }
 
         //更改当前签到状态文字
-        if (versionCode < 7003000 && mainDrawerClass != null) {
+        if (mainDrawerClass != null) {
             findAndHookMethod(mainDrawerClass, methodInitDrawerHeader, new XC_MethodHook() {
                 @Override
                 protected void afterHookedMethod(MethodHookParam param) throws Throwable {
@@ -24,13 +24,15 @@ public class CdnHook {
     public CdnHook(Context context, int versionCode) {
         if (versionCode < 138)
             return;
-        for (Method m : ClassHelper.HttpInterceptor.getMethodList(context))
-            XposedBridge.hookMethod(m, new XC_MethodHook() {
-                @Override
-                protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                    super.beforeHookedMethod(param);
-                    param.setResult(param.args[2]);
-                }
-            });
+        ClassHelper.whenResolved(ClassHelper.HttpInterceptor.getClazzAsync(context), clazz -> {
+            for (Method m : ClassHelper.HttpInterceptor.getMethodList(context, clazz))
+                XposedBridge.hookMethod(m, new XC_MethodHook() {
+                    @Override
+                    protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                        super.beforeHookedMethod(param);
+                        param.setResult(param.args[2]);
+                    }
+                });
+        });
     }
 }
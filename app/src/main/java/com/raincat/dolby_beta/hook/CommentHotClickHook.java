@@ -27,8 +27,7 @@ public class CommentHotClickHook {
     public CommentHotClickHook(Context context) {
         if (!SettingHelper.getInstance().isEnable(SettingHelper.beauty_comment_hot_key))
             return;
-        Class<?> commentDataClass = ClassHelper.CommentDataClass.getClazz();
-        if (commentDataClass != null) {
+        ClassHelper.whenResolved(ClassHelper.CommentDataClass.getClazzAsync(), commentDataClass -> {
             XposedBridge.hookAllConstructors(commentDataClass, new XC_MethodHook() {
                 @Override
                 protected void afterHookedMethod(MethodHookParam param) throws Throwable {
@@ -62,6 +61,6 @@ public class CommentHotClickHook {
                         param.args[0] = array2;
                     }
                 });
-        }
+        });
     }
 }
\ No newline at end of file
@@ -1,15 +1,17 @@
 package com.raincat.dolby_beta.hook;
 
 import android.content.Context;
-import android.net.Uri;
-import android.text.TextUtils;
 
 import com.raincat.dolby_beta.db.CloudDao;
 import com.raincat.dolby_beta.helper.ClassHelper;
+import com.raincat.dolby_beta.helper.EAPIBatchRouter;
+import com.raincat.dolby_beta.helper.EAPIBody;
 import com.raincat.dolby_beta.helper.EAPIHelper;
+import com.raincat.dolby_beta.helper.EAPIRouter;
 import com.raincat.dolby_beta.helper.SettingHelper;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import de.robv.android.xposed.XC_MethodHook;
@@ -27,8 +29,18 @@ import de.robv.android.xposed.XposedBridge;
  */
 
 public class EAPIHook {
+    //各接口的改写器，只编译一次
+    private static final EAPIRouter router = new EAPIRouter()
+            .register(new PlayerRewriter())
+            .register(new ManipulateRewriter())
+            .register(new LikeRewriter())
+            .register(new EffectRewriter())
+            .register(new BatchRewriter())
+            .register(new CloudInfoRewriter())
+            .register(new CloudPubRewriter());
+
     public EAPIHook(final Context context) {
-        XposedBridge.hookMethod(ClassHelper.HttpResponse.getResultMethod(context), new XC_MethodHook() {
+        ClassHelper.whenResolved(ClassHelper.HttpResponse.getClazzAsync(context), clazz -> XposedBridge.hookMethod(ClassHelper.HttpResponse.getResultMethod(context, clazz), new XC_MethodHook() {
             @Override
             protected void afterHookedMethod(MethodHookParam param) throws Throwable {
                 //代理和黑胶都未开启
@@ -38,104 +50,205 @@ public class EAPIHook {
                 //返回参数不对
                 if ((!(param.getResult() instanceof String) && !(param.getResult() instanceof JSONObject)))
                     return;
+                //字段已缓存，只读两次字段即可取得路径
+                Object eapi = ClassHelper.HttpResponse.getEapi(context, param.thisObject);
+                String path = ClassHelper.HttpUrl.getUri(context, eapi).getPath();
+                int start = path == null ? -1 : path.indexOf("/eapi/");
+                if (start < 0)
+                    return;
+                //不需要改写的接口不读取响应
+                EAPIRouter.Rewriter rewriter = router.match(path, start + "/eapi/".length());
+                if (rewriter == null)
+                    return;
                 //返回参数为空
-                String original = param.getResult().toString();
-                if (TextUtils.isEmpty(original)) {
+                EAPIBody body = new EAPIBody(param.getResult());
+                if (body.isEmpty()) {
                     return;
                 }
-                ClassHelper.HttpResponse httpResponse = new ClassHelper.HttpResponse(param.thisObject);
-                Object eapi = httpResponse.getEapi(context);
-                Uri uri = ClassHelper.HttpUrl.getUri(context, eapi);
-                if (!uri.getPath().contains("/eapi/"))
-                    return;
-                String path = uri.getPath();
-
-                if (path.contains("song/enhance/player/url")) {
-                    original = EAPIHelper.modifyPlayer(original);
-                } else if (path.contains("song/enhance/download/url")) {
-                    JSONObject jsonObject = new JSONObject(original);
-                    JSONObject object = jsonObject.getJSONObject("data");
-                    JSONArray array = new JSONArray();
-                    array.put(object);
-                    jsonObject.put("data", array);
-                    original = EAPIHelper.modifyPlayer(jsonObject.toString())
-                            .replace("[", "").replace("]", "");
-                } else if (path.contains("v1/playlist/manipulate/tracks")) {
-                    original = EAPIHelper.modifyManipulate(ClassHelper.HttpParams.getParams(context, eapi), original);
-                } else if (path.contains("song/like")) {
-                    original = EAPIHelper.modifyLike(ClassHelper.HttpParams.getParams(context, eapi), original);
-                } else if (path.contains("sound/mobile") || path.contains("page=audio_effect")) {
-                    original = EAPIHelper.modifyEffect(original);
-                } else if (path.contains("batch")) {
-                    if (original.contains("comment\\/banner\\/get")) {
-                        JSONObject jsonObject = new JSONObject(original);
-                        if (!jsonObject.isNull("/api/content/exposure/comment/banner/get")) {
-                            JSONObject object = new JSONObject();
-                            object.put("code", 200);
-                            object.put("data", new JSONObject());
-                            jsonObject.put("/api/content/exposure/comment/banner/get", object);
-                        }
-                        if (!jsonObject.isNull("/api/v1/content/exposure/comment/banner/get")) {
-                            JSONObject object = jsonObject.getJSONObject("/api/v1/content/exposure/comment/banner/get");
-                            JSONObject data = object.getJSONObject("data");
-                            data.put("count", 0);
-                            data.put("offset", 999999999);
-                            data.put("records", new JSONArray());
-                            data.put("message", "");
-                            object.put("data", data);
-                            jsonObject.put("/api/v1/content/exposure/comment/banner/get", object);
-                        }
-                        original = jsonObject.toString();
-                    } else if (SettingHelper.getInstance().isEnable(SettingHelper.fix_comment_key) &&
-                            original.contains("\\/api\\/resource\\/comment\\/musiciansaid\\/authors")) {
-                        JSONObject jsonObject = new JSONObject(original);
-                        JSONObject object = jsonObject.getJSONObject("/api/resource/comment/musiciansaid/authors");
-                        JSONObject data = object.getJSONObject("data");
-                        JSONArray team = data.getJSONArray("team");
-                        for (int i = 0; i < team.length(); i++) {
-                            JSONObject o = team.getJSONObject(i);
-                            String s = o.optString("authorTypeText");
-                            if (s != null && s.equals("作者")) {
-                                long uid = o.optLong("uid");
-                                long artistId = o.optLong("artistId");
-                                if (uid > 2147483647) {
-                                    JSONObject artistJSONObject = jsonObject.getJSONObject("/api/auth/artist");
-                                    JSONObject authJSONObject = artistJSONObject.getJSONObject("auth");
-                                    while (uid > 2147483647)
-                                        uid = uid / 10;
-                                    authJSONObject.put(artistId + "", uid);
-                                    artistJSONObject.put("auth", authJSONObject);
-                                    jsonObject.put("/api/auth/artist", artistJSONObject);
-                                    original = jsonObject.toString();
-                                }
-                            }
-                        }
+
+                //JSONObject原地改写，字符串流式改写，有改动时按原类型交回
+                rewriter.rewrite(context, eapi, body);
+                if (body.isChanged())
+                    param.setResult(body.toResult());
+            }
+        }));
+    }
+
+    private static class PlayerRewriter implements EAPIRouter.Rewriter {
+        @Override
+        public String[] getRoutes() {
+            //下载接口的data为单个对象，改写时保持原结构
+            return new String[]{"song/enhance/player/url*", "song/enhance/download/url*"};
+        }
+
+        @Override
+        public void rewrite(Context context, Object eapi, EAPIBody body) throws Exception {
+            if (body.isTree()) {
+                EAPIHelper.modifyPlayer(body.getTree());
+                body.markChanged();
+            } else
+                body.setText(EAPIHelper.modifyPlayer(body.getText()));
+        }
+    }
+
+    private static class ManipulateRewriter implements EAPIRouter.Rewriter {
+        @Override
+        public String[] getRoutes() {
+            return new String[]{"v1/playlist/manipulate/tracks*"};
+        }
+
+        @Override
+        public void rewrite(Context context, Object eapi, EAPIBody body) throws Exception {
+            //只读取code等标记，需要时整体替换为重新请求的结果
+            body.setText(EAPIHelper.modifyManipulate(ClassHelper.HttpParams.getParams(context, eapi), body.getText()));
+        }
+    }
+
+    private static class LikeRewriter implements EAPIRouter.Rewriter {
+        @Override
+        public String[] getRoutes() {
+            return new String[]{"song/like*"};
+        }
+
+        @Override
+        public void rewrite(Context context, Object eapi, EAPIBody body) throws Exception {
+            body.setText(EAPIHelper.modifyLike(ClassHelper.HttpParams.getParams(context, eapi), body.getText()));
+        }
+    }
+
+    private static class EffectRewriter implements EAPIRouter.Rewriter {
+        @Override
+        public String[] getRoutes() {
+            return new String[]{"sound/mobile*"};
+        }
+
+        @Override
+        public void rewrite(Context context, Object eapi, EAPIBody body) throws Exception {
+            if (body.isTree()) {
+                if (EAPIHelper.modifyEffect(body.getTree()))
+                    body.markChanged();
+            } else
+                body.setText(EAPIHelper.modifyEffect(body.getText()));
+        }
+    }
+
+    private static class BatchRewriter implements EAPIRouter.Rewriter {
+        //batch中各子接口的改写器
+        private final EAPIBatchRouter batchRouter = new EAPIBatchRouter()
+                .register(new CommentBannerRewriter())
+                .register(new MusicianSaidRewriter());
+
+        @Override
+        public String[] getRoutes() {
+            return new String[]{"batch*"};
+        }
+
+        @Override
+        public void rewrite(Context context, Object eapi, EAPIBody body) throws Exception {
+            if (body.isTree()) {
+                if (batchRouter.rewrite(body.getTree()))
+                    body.markChanged();
+            } else
+                body.setText(batchRouter.rewrite(body.getText()));
+        }
+    }
+
+    /**
+     * 去除评论区横幅
+     */
+    private static class CommentBannerRewriter implements EAPIBatchRouter.Rewriter {
+        @Override
+        public String[] getApis() {
+            return new String[]{"/api/content/exposure/comment/banner/get", "/api/v1/content/exposure/comment/banner/get"};
+        }
+
+        @Override
+        public boolean rewrite(JSONObject batch, String api) throws JSONException {
+            if (api.equals("/api/content/exposure/comment/banner/get")) {
+                JSONObject object = new JSONObject();
+                object.put("code", 200);
+                object.put("data", new JSONObject());
+                batch.put(api, object);
+            } else {
+                JSONObject data = batch.getJSONObject(api).getJSONObject("data");
+                data.put("count", 0);
+                data.put("offset", 999999999);
+                data.put("records", new JSONArray());
+                data.put("message", "");
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 修复音乐人说中作者uid超出int范围导致的评论区异常
+     */
+    private static class MusicianSaidRewriter implements EAPIBatchRouter.Rewriter {
+        @Override
+        public String[] getApis() {
+            return new String[]{"/api/resource/comment/musiciansaid/authors"};
+        }
+
+        @Override
+        public boolean rewrite(JSONObject batch, String api) throws JSONException {
+            if (!SettingHelper.getInstance().isEnable(SettingHelper.fix_comment_key))
+                return false;
+            boolean changed = false;
+            JSONArray team = batch.getJSONObject(api).getJSONObject("data").getJSONArray("team");
+            for (int i = 0; i < team.length(); i++) {
+                JSONObject o = team.getJSONObject(i);
+                String s = o.optString("authorTypeText");
+                if (s != null && s.equals("作者")) {
+                    long uid = o.optLong("uid");
+                    long artistId = o.optLong("artistId");
+                    if (uid > 2147483647) {
+                        JSONObject authJSONObject = batch.getJSONObject("/api/auth/artist").getJSONObject("auth");
+                        while (uid > 2147483647)
+                            uid = uid / 10;
+                        authJSONObject.put(artistId + "", uid);
+                        changed = true;
                     }
-                } else if (path.contains("upload/cloud/info/v2")) {
-                    JSONObject jsonObject = new JSONObject(original);
-                    jsonObject = jsonObject.getJSONObject("privateCloud");
-                    jsonObject = jsonObject.getJSONObject("simpleSong");
-                    original = original.replace("\"waitTime\":60,", "\"waitTime\":5,");
-                    CloudDao.getInstance(context).saveSong(Integer.parseInt(jsonObject.getString("id")), original);
-                } else if (path.contains("cloud/pub/v2")) {
-                    String songid = EAPIHelper.decrypt(ClassHelper.HttpParams.getParams(context, eapi).get("params")).getString("songid");
-                    EAPIHelper.uploadCloud(songid);
-                    original = CloudDao.getInstance(context).getSong(Integer.parseInt(songid));
                 }
+            }
+            return changed;
+        }
+    }
+
+    private static class CloudInfoRewriter implements EAPIRouter.Rewriter {
+        @Override
+        public String[] getRoutes() {
+            return new String[]{"upload/cloud/info/v2*"};
+        }
 
-                param.setResult(param.getResult() instanceof JSONObject ? new JSONObject(original) : original);
+        @Override
+        public void rewrite(Context context, Object eapi, EAPIBody body) throws Exception {
+            JSONObject jsonObject;
+            if (body.isTree()) {
+                jsonObject = body.getTree();
+                if (EAPIHelper.replaceInt(jsonObject, "waitTime", 60, 5))
+                    body.markChanged();
+            } else {
+                //字符串只解析一次用于读取id，改写仍在字符串上进行
+                jsonObject = new JSONObject(body.getText());
+                body.setText(body.getText().replace("\"waitTime\":60,", "\"waitTime\":5,"));
             }
-        });
+            jsonObject = jsonObject.getJSONObject("privateCloud");
+            jsonObject = jsonObject.getJSONObject("simpleSong");
+            CloudDao.getInstance(context).saveSong(Integer.parseInt(jsonObject.getString("id")), body.getText());
+        }
     }
 
-    private void logcat(String msg) {
-        int max_str_length = 1800;
-        //大于4000时
-        while (msg.length() > max_str_length) {
-            XposedBridge.log(msg.substring(0, max_str_length));
-            msg = msg.substring(max_str_length);
+    private static class CloudPubRewriter implements EAPIRouter.Rewriter {
+        @Override
+        public String[] getRoutes() {
+            return new String[]{"cloud/pub/v2*"};
+        }
+
+        @Override
+        public void rewrite(Context context, Object eapi, EAPIBody body) throws Exception {
+            String songid = EAPIHelper.decrypt(ClassHelper.HttpParams.getParams(context, eapi).get("params")).getString("songid");
+            EAPIHelper.uploadCloud(songid);
+            body.setText(CloudDao.getInstance(context).getSong(Integer.parseInt(songid)));
         }
-        //剩余部分
-        XposedBridge.log(msg);
     }
 }
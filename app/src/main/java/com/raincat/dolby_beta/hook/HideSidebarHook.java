@@ -7,6 +7,7 @@ import android.widget.LinearLayout;
 
 import com.raincat.dolby_beta.helper.ClassHelper;
 import com.raincat.dolby_beta.helper.SettingHelper;
+import com.raincat.dolby_beta.helper.SymbolHelper;
 import com.raincat.dolby_beta.model.SidebarEnum;
 
 import java.util.HashMap;
@@ -36,11 +37,17 @@ public class HideSidebarHook {
     private String objectMDrawerContainerString = "mDrawerContainer";
 
     public HideSidebarHook(Context context, int versionCode) {
-        if (versionCode < 138) {
-            classMainDrawerString = "com.netease.cloudmusic.ui.l";
-            classDrawerItemEnumString = "com.netease.cloudmusic.ui.l$b";
-            methodRefreshDrawerString = "m";
-            objectMDrawerContainerString = "i";
+        //混淆名见符号表，表中没有收录刷新方法的版本改用结构查找侧边栏数据类
+        String itemEnumSymbol = SymbolHelper.getSymbol("drawer.item_enum", versionCode);
+        if (itemEnumSymbol != null)
+            classDrawerItemEnumString = itemEnumSymbol;
+        String refreshSymbol = SymbolHelper.getSymbol("drawer.refresh", versionCode);
+        String containerSymbol = SymbolHelper.getSymbol("drawer.container", versionCode);
+        boolean resolveStructurally = refreshSymbol == null || containerSymbol == null;
+        if (!resolveStructurally) {
+            classMainDrawerString = SymbolHelper.getClassName(refreshSymbol);
+            methodRefreshDrawerString = SymbolHelper.getMemberName(refreshSymbol);
+            objectMDrawerContainerString = SymbolHelper.getMemberName(containerSymbol);
         }
 
         classDrawerItemEnum = XposedHelpers.findClassIfExists(classDrawerItemEnumString, context.getClassLoader());
@@ -52,8 +59,8 @@ public class HideSidebarHook {
             sidebarSettingMap = SettingHelper.getInstance().getSidebarSetting(SidebarEnum.getSidebarEnum());
         }
 
-        if (versionCode >= 7003010 && ClassHelper.SidebarItem.getClazz(context) != null) {
-            XposedBridge.hookAllConstructors(ClassHelper.SidebarItem.getClazz(context), new XC_MethodHook() {
+        if (resolveStructurally) {
+            ClassHelper.whenResolved(ClassHelper.SidebarItem.getClazzAsync(context), clazz -> XposedBridge.hookAllConstructors(clazz, new XC_MethodHook() {
                 @Override
                 protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
                     super.beforeHookedMethod(param);
@@ -80,8 +87,8 @@ public class HideSidebarHook {
                         }
                     }
                 }
-            });
-        } else if (versionCode < 7003010) {
+            }));
+        } else {
             Class<?> mainDrawerClass = XposedHelpers.findClassIfExists(classMainDrawerString, context.getClassLoader());
             if (mainDrawerClass != null)
                 XposedHelpers.findAndHookMethod(mainDrawerClass, methodRefreshDrawerString, new XC_MethodHook() {
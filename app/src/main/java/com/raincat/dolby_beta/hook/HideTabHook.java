@@ -60,9 +60,8 @@ public class HideTabHook {
         }
 
         if (versionCode >= 8000010) {
-            Class<?> bottomTabViewClass = ClassHelper.BottomTabView.getClazz(context);
-            if (bottomTabViewClass != null) {
-                findAndHookMethod(bottomTabViewClass, ClassHelper.BottomTabView.getTabInitMethod(context).getName(), new XC_MethodHook() {
+            ClassHelper.whenResolved(ClassHelper.BottomTabView.getClazzAsync(context), bottomTabViewClass -> {
+                findAndHookMethod(bottomTabViewClass, ClassHelper.BottomTabView.getTabInitMethod(context, bottomTabViewClass).getName(), new XC_MethodHook() {
                     @Override
                     protected void afterHookedMethod(MethodHookParam param) throws Throwable {
                         super.afterHookedMethod(param);
@@ -74,7 +73,7 @@ public class HideTabHook {
                     }
                 });
 
-                findAndHookMethod(bottomTabViewClass, ClassHelper.BottomTabView.getTabRefreshMethod(context).getName(), List.class, new XC_MethodHook() {
+                findAndHookMethod(bottomTabViewClass, ClassHelper.BottomTabView.getTabRefreshMethod(context, bottomTabViewClass).getName(), List.class, new XC_MethodHook() {
                     @Override
                     protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
                         super.beforeHookedMethod(param);
@@ -85,7 +84,7 @@ public class HideTabHook {
                         param.args[0] = list;
                     }
                 });
-            }
+            });
         }
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import android.content.SharedPreferences;
 
 
 import com.raincat.dolby_beta.helper.ExtraHelper;
+import com.raincat.dolby_beta.helper.SymbolHelper;
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XC_MethodReplacement;
 import de.robv.android.xposed.XposedBridge;
@@ -14,6 +15,7 @@ import de.robv.android.xposed.XposedBridge;
 
 import static de.robv.android.xposed.XposedHelpers.findAndHookMethod;
 import static de.robv.android.xposed.XposedHelpers.findClass;
+import static de.robv.android.xposed.XposedHelpers.findClassIfExists;
 
 
 public class ListentogetherHook {
@@ -21,40 +23,19 @@ public class ListentogetherHook {
     private final SharedPreferences listening;
 
     public ListentogetherHook(Context context,int versionCode) {
-        //旧版写法
-        if (versionCode > 8007090) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.f2", context.getClassLoader()),
-                    "v", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8007075) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.x", context.getClassLoader()),
-                    "v", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8007070) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.y", context.getClassLoader()),
-                    "u", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8007055) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.x", context.getClassLoader()),
-                    "u", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8007026) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.w", context.getClassLoader()),
-                    "o", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8007004) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.w", context.getClassLoader()),
-                    "n", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8006076) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.u", context.getClassLoader()),
-                    "m", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8006045) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.r", context.getClassLoader()),
-                    "l1", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8006040) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.p", context.getClassLoader()),
-                    "h1", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode > 8006019) {
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.x", context.getClassLoader()),
-                    "n1", XC_MethodReplacement.returnConstant(true));
-        }else if (versionCode >= 8006000){
-            findAndHookMethod(findClass("com.netease.cloudmusic.module.listentogether.x", context.getClassLoader()),
-                    "m1", XC_MethodReplacement.returnConstant(true));
+        //旧版写法，混淆后的类名与方法名见符号表，表中没有的版本只依靠新版写法
+        String unlockSymbol = SymbolHelper.getSymbol("listentogether.unlock", versionCode);
+        if (unlockSymbol == null) {
+            if (SymbolHelper.isLoaded())
+                XposedBridge.log("DolbyBeta: listen together unlock method of " + versionCode + " not in symbol table");
+            else
+                XposedBridge.log("DolbyBeta: symbol table unavailable, listen together unlock for " + versionCode + " disabled");
+        } else if (!unlockSymbol.isEmpty()) {
+            Class<?> unlockClass = findClassIfExists(SymbolHelper.getClassName(unlockSymbol), context.getClassLoader());
+            if (unlockClass != null)
+                findAndHookMethod(unlockClass, SymbolHelper.getMemberName(unlockSymbol), XC_MethodReplacement.returnConstant(true));
+            else
+                XposedBridge.log("DolbyBeta: listen together unlock class " + SymbolHelper.getClassName(unlockSymbol) + " not found");
         }
         //新版写法
         listening = context.getSharedPreferences("LISTEN_TOGETHER", Context.MODE_MULTI_PROCESS);
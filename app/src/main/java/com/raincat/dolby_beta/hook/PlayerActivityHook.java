@@ -8,6 +8,7 @@ import android.widget.ImageView;
 import android.widget.RelativeLayout;
 import android.widget.ViewFlipper;
 
+import com.raincat.dolby_beta.helper.LazyHookHelper;
 import com.raincat.dolby_beta.helper.SettingHelper;
 
 import java.lang.reflect.Field;
@@ -26,11 +27,16 @@ import de.robv.android.xposed.XposedHelpers;
  */
 
 public class PlayerActivityHook {
+    //唱片旋转与背景相关的类都在播放页中使用
+    private static final String PLAYER_ACTIVITY = "com.netease.cloudmusic.activity.PlayerActivity";
+
     public PlayerActivityHook(Context context, final int versionCode) {
         final boolean black = SettingHelper.getInstance().isEnable(SettingHelper.beauty_black_hide_key);
         final boolean ksong = SettingHelper.getInstance().isEnable(SettingHelper.beauty_ksong_hide_key);
-        XposedHelpers.findAndHookMethod(XposedHelpers.findClass("com.netease.cloudmusic.activity.PlayerActivity", context.getClassLoader()),
-                "onCreate", Bundle.class, new XC_MethodHook() {
+        ClassLoader classLoader = context.getClassLoader();
+        //打开播放页时才hook
+        LazyHookHelper.hookOnActivityCreated(classLoader, PLAYER_ACTIVITY, playerActivityClass ->
+                XposedHelpers.findAndHookMethod(playerActivityClass, "onCreate", Bundle.class, new XC_MethodHook() {
                     @Override
                     protected void afterHookedMethod(MethodHookParam param) throws Throwable {
                         super.afterHookedMethod(param);
@@ -87,45 +93,49 @@ public class PlayerActivityHook {
                             }
                         }
                     }
-                });
+                }));
 
         if (SettingHelper.getInstance().isEnable(SettingHelper.beauty_rotation_key))
             if (versionCode >= 123) {
-                XposedHelpers.findAndHookMethod(XposedHelpers.findClass("com.netease.cloudmusic.ui.RotationRelativeLayout$AnimationHolder", context.getClassLoader()), "prepareAnimation", new XC_MethodHook() {
-                    @Override
-                    protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                        super.beforeHookedMethod(param);
-                        param.setResult(null);
-                    }
-                });
+                LazyHookHelper.hookOnClassLoaded(classLoader, "com.netease.cloudmusic.ui.RotationRelativeLayout$AnimationHolder", PLAYER_ACTIVITY, clazz ->
+                        XposedHelpers.findAndHookMethod(clazz, "prepareAnimation", new XC_MethodHook() {
+                            @Override
+                            protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                                super.beforeHookedMethod(param);
+                                param.setResult(null);
+                            }
+                        }));
             } else {
-                XposedHelpers.findAndHookMethod(XposedHelpers.findClass("com.netease.cloudmusic.ui.RotationRelativeLayout$a", context.getClassLoader()), "b", new XC_MethodHook() {
-                    @Override
-                    protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                        super.beforeHookedMethod(param);
-                        param.setResult(null);
-                    }
-                });
+                LazyHookHelper.hookOnClassLoaded(classLoader, "com.netease.cloudmusic.ui.RotationRelativeLayout$a", PLAYER_ACTIVITY, clazz ->
+                        XposedHelpers.findAndHookMethod(clazz, "b", new XC_MethodHook() {
+                            @Override
+                            protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                                super.beforeHookedMethod(param);
+                                param.setResult(null);
+                            }
+                        }));
             }
         if (SettingHelper.getInstance().isEnable(SettingHelper.beauty_background_key))
             if (versionCode >= 123) {
-                XposedHelpers.findAndHookMethod(XposedHelpers.findClass("com.netease.cloudmusic.ui.PlayerBackgroundImage", context.getClassLoader()), "setBlurCover",String.class,String.class,int.class, new XC_MethodHook() {
-                    @Override
-                    protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                        super.beforeHookedMethod(param);
-                        param.args[0]= SettingHelper.getInstance().getPictureUrl();
-                        param.args[2]= SettingHelper.getInstance().getBackgroundBlur();
-                    }
-                });
+                LazyHookHelper.hookOnClassLoaded(classLoader, "com.netease.cloudmusic.ui.PlayerBackgroundImage", PLAYER_ACTIVITY, clazz ->
+                        XposedHelpers.findAndHookMethod(clazz, "setBlurCover",String.class,String.class,int.class, new XC_MethodHook() {
+                            @Override
+                            protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                                super.beforeHookedMethod(param);
+                                param.args[0]= SettingHelper.getInstance().getPictureUrl();
+                                param.args[2]= SettingHelper.getInstance().getBackgroundBlur();
+                            }
+                        }));
             } else {
-                XposedHelpers.findAndHookMethod(XposedHelpers.findClass("com.netease.cloudmusic.ui.r", context.getClassLoader()), "a",String.class,String.class,int.class, new XC_MethodHook() {
-                    @Override
-                    protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                        super.beforeHookedMethod(param);
-                        param.args[0]= SettingHelper.getInstance().getPictureUrl();
-                        param.args[2]= SettingHelper.getInstance().getBackgroundBlur();
-                    }
-                });
+                LazyHookHelper.hookOnClassLoaded(classLoader, "com.netease.cloudmusic.ui.r", PLAYER_ACTIVITY, clazz ->
+                        XposedHelpers.findAndHookMethod(clazz, "a",String.class,String.class,int.class, new XC_MethodHook() {
+                            @Override
+                            protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                                super.beforeHookedMethod(param);
+                                param.args[0]= SettingHelper.getInstance().getPictureUrl();
+                                param.args[2]= SettingHelper.getInstance().getBackgroundBlur();
+                            }
+                        }));
             }
     }
 }
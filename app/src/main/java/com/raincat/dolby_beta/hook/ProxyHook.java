@@ -7,6 +7,7 @@ import android.os.Bundle;
 import com.raincat.dolby_beta.helper.ExtraHelper;
 import com.raincat.dolby_beta.helper.ScriptHelper;
 import com.raincat.dolby_beta.helper.SettingHelper;
+import com.raincat.dolby_beta.helper.SymbolHelper;
 
 import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
@@ -45,41 +46,54 @@ public class ProxyHook {
     private String fieldProxy = "proxy";
     private final List<String> whiteUrlList = Arrays.asList("song/enhance/player/url", "song/enhance/download/url","/package");
 
-    public ProxyHook(Context context, boolean isPlayProcess) {
-        Class<?> realCallClass = findClassIfExists("okhttp3.internal.connection.RealCall", context.getClassLoader());
-        if (realCallClass != null) {
-            fieldSSLSocketFactory = "sslSocketFactoryOrNull";
-        } else {
-            realCallClass = findClassIfExists("okhttp3.RealCall", context.getClassLoader());
+    public ProxyHook(Context context, int versionCode, boolean isPlayProcess) {
+        //混淆版okhttp的名称见符号表，表中没有的版本按类名探测未混淆的RealCall
+        Class<?> realCallClass = null;
+        String realCallSymbol = SymbolHelper.getSymbol("okhttp.real_call", versionCode);
+        String sslSocketFactorySymbol = SymbolHelper.getSymbol("okhttp.ssl_socket_factory", versionCode);
+        if (realCallSymbol != null && sslSocketFactorySymbol != null) {
+            realCallClass = findClassIfExists(SymbolHelper.getClassName(realCallSymbol), context.getClassLoader());
+            fieldSSLSocketFactory = SymbolHelper.getMemberName(sslSocketFactorySymbol);
+        }
+        if (realCallClass == null) {
+            realCallClass = findClassIfExists("okhttp3.internal.connection.RealCall", context.getClassLoader());
             if (realCallClass != null)
-                fieldSSLSocketFactory = "sslSocketFactory";
+                fieldSSLSocketFactory = "sslSocketFactoryOrNull";
             else {
-                realCallClass = findClassIfExists("okhttp3.z", context.getClassLoader());
-                fieldSSLSocketFactory = "o";
-                fieldHttpUrl = "a";
-                fieldProxy = "d";
+                realCallClass = findClassIfExists("okhttp3.RealCall", context.getClassLoader());
+                fieldSSLSocketFactory = "sslSocketFactory";
             }
         }
-
-        hookAllConstructors(realCallClass, new XC_MethodHook() {
-            @Override
-            protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                if (param.args.length == 3) {
-                    Object client = param.args[0];
-                    Object request = param.args[1];
-
-                    Field urlField = request.getClass().getDeclaredField(fieldHttpUrl);
-                    urlField.setAccessible(true);
-                    Object urlObj = urlField.get(request);
-                    for (String url : whiteUrlList) {
-                       if (urlObj.toString().contains(url)) {
-                            setProxy(context, client);
-                            break;
+        String requestUrlSymbol = SymbolHelper.getSymbol("okhttp.request_url", versionCode);
+        if (requestUrlSymbol != null)
+            fieldHttpUrl = SymbolHelper.getMemberName(requestUrlSymbol);
+        String proxySymbol = SymbolHelper.getSymbol("okhttp.proxy", versionCode);
+        if (proxySymbol != null)
+            fieldProxy = SymbolHelper.getMemberName(proxySymbol);
+
+        if (realCallClass == null)
+            XposedBridge.log("DolbyBeta: okhttp RealCall not found, proxy for player urls disabled");
+        else {
+            hookAllConstructors(realCallClass, new XC_MethodHook() {
+                @Override
+                protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                    if (param.args.length == 3) {
+                        Object client = param.args[0];
+                        Object request = param.args[1];
+
+                        Field urlField = request.getClass().getDeclaredField(fieldHttpUrl);
+                        urlField.setAccessible(true);
+                        Object urlObj = urlField.get(request);
+                        for (String url : whiteUrlList) {
+                           if (urlObj.toString().contains(url)) {
+                                setProxy(context, client);
+                                break;
+                            }
                         }
                     }
                 }
-            }
-        });
+            });
+        }
 
         Class<?> okHttpClientBuilderClass = XposedHelpers.findClassIfExists("okhttp3.OkHttpClient$Builder", context.getClassLoader());
         if (okHttpClientBuilderClass != null) {
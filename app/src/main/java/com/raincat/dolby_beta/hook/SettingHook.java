@@ -17,6 +17,7 @@ import android.widget.ScrollView;
 import android.widget.TextView;
 
 import com.raincat.dolby_beta.helper.ExtraHelper;
+import com.raincat.dolby_beta.helper.LazyHookHelper;
 import com.raincat.dolby_beta.helper.SettingHelper;
 import com.raincat.dolby_beta.model.SidebarEnum;
 import com.raincat.dolby_beta.utils.Tools;
@@ -67,7 +68,6 @@ import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedHelpers;
 
 import static de.robv.android.xposed.XposedHelpers.findAndHookMethod;
-import static de.robv.android.xposed.XposedHelpers.findClassIfExists;
 
 /**
  * <pre>
@@ -94,7 +94,11 @@ public class SettingHook {
         {
             SettingActivity="com.netease.cloudmusic.activity.SettingActivity";
         }
-        Class<?> settingActivityClass = findClassIfExists(SettingActivity, context.getClassLoader());
+        //用户打开设置页时才扫描字段并hook
+        LazyHookHelper.hookOnActivityCreated(context.getClassLoader(), SettingActivity, this::hookSettingActivity);
+    }
+
+    private void hookSettingActivity(Class<?> settingActivityClass) {
         Field[] allFields = settingActivityClass.getDeclaredFields();
         for (Field field : allFields) {
             if (field.getType().getName().contains("Switch")) {
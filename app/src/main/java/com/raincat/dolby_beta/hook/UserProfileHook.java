@@ -48,8 +48,11 @@ public class UserProfileHook {
                 protected void afterHookedMethod(MethodHookParam param) throws Throwable {
                     super.afterHookedMethod(param);
                     new Thread(() -> {
-                        if (ExtraHelper.getExtraDate(ExtraHelper.COOKIE).equals("-1"))
-                            ExtraHelper.setExtraDate(ExtraHelper.COOKIE, ClassHelper.Cookie.getCookie(context));
+                        if (ExtraHelper.getExtraDate(ExtraHelper.COOKIE).equals("-1")) {
+                            String cookie = ClassHelper.Cookie.getCookie(context);
+                            if (cookie != null)
+                                ExtraHelper.setExtraDate(ExtraHelper.COOKIE, cookie);
+                        }
                         if (ExtraHelper.getExtraDate(ExtraHelper.USER_ID).equals("-1"))
                             UserHelper.getUserInfo();
                     }).start();
@@ -1,232 +0,0 @@
-package com.raincat.dolby_beta.model;
-
-import java.util.ArrayList;
-import java.util.List;
-
-/**
- * <pre>
- *     author : RainCat
- *     e-mail : nining377@gmail.com
- *     time   : 2019/10/23
- *     desc   : 网易云返回的歌曲信息
- *     version: 1.0
- * </pre>
- */
-
-public class NeteaseSongListBean {
-    private int code;
-    private List<DataBean> data;
-
-    public int getCode() {
-        return code;
-    }
-
-    public void setCode(int code) {
-        this.code = code;
-    }
-
-    public List<DataBean> getData() {
-        if (data == null)
-            data = new ArrayList<>();
-        return data;
-    }
-
-    public void setData(List<DataBean> data) {
-        this.data = data;
-    }
-
-    public static class DataBean {
-        private long id;
-        private String url;
-        private int br;
-        private int size;
-        private String md5;
-        private int code;
-        private int expi;
-        private String type;
-        private float gain;
-        private int fee;
-        private Object uf;
-        private int payed;
-        private int flag;
-        private boolean canExtend;
-        private FreeTrialInfoBean freeTrialInfo;
-        private String level;
-        private String encodeType;
-        private int peak;
-        private int time;
-
-        public long getId() {
-            return id;
-        }
-
-        public void setId(long id) {
-            this.id = id;
-        }
-
-        public String getUrl() {
-            return url;
-        }
-
-        public void setUrl(String url) {
-            this.url = url;
-        }
-
-        public int getBr() {
-            return br;
-        }
-
-        public void setBr(int br) {
-            this.br = br;
-        }
-
-        public int getSize() {
-            return size;
-        }
-
-        public void setSize(int size) {
-            this.size = size;
-        }
-
-        public String getMd5() {
-            return md5;
-        }
-
-        public void setMd5(String md5) {
-            this.md5 = md5;
-        }
-
-        public int getCode() {
-            return code;
-        }
-
-        public void setCode(int code) {
-            this.code = code;
-        }
-
-        public int getExpi() {
-            return expi;
-        }
-
-        public void setExpi(int expi) {
-            this.expi = expi;
-        }
-
-        public String getType() {
-            return type;
-        }
-
-        public void setType(String type) {
-            this.type = type;
-        }
-
-        public float getGain() {
-            return gain;
-        }
-
-        public void setGain(float gain) {
-            this.gain = gain;
-        }
-
-        public int getFee() {
-            return fee;
-        }
-
-        public void setFee(int fee) {
-            this.fee = fee;
-        }
-
-        public Object getUf() {
-            return uf;
-        }
-
-        public void setUf(Object uf) {
-            this.uf = uf;
-        }
-
-        public int getPayed() {
-            return payed;
-        }
-
-        public void setPayed(int payed) {
-            this.payed = payed;
-        }
-
-        public int getFlag() {
-            return flag;
-        }
-
-        public void setFlag(int flag) {
-            this.flag = flag;
-        }
-
-        public boolean isCanExtend() {
-            return canExtend;
-        }
-
-        public void setCanExtend(boolean canExtend) {
-            this.canExtend = canExtend;
-        }
-
-        public FreeTrialInfoBean getFreeTrialInfo() {
-            return freeTrialInfo;
-        }
-
-        public void setFreeTrialInfo(FreeTrialInfoBean freeTrialInfo) {
-            this.freeTrialInfo = freeTrialInfo;
-        }
-
-        public String getLevel() {
-            return level;
-        }
-
-        public void setLevel(String level) {
-            this.level = level;
-        }
-
-        public String getEncodeType() {
-            return encodeType;
-        }
-
-        public void setEncodeType(String encodeType) {
-            this.encodeType = encodeType;
-        }
-
-        public int getPeak() {
-            return peak;
-        }
-
-        public void setPeak(int peak) {
-            this.peak = peak;
-        }
-
-        public int getTime() {
-            return time;
-        }
-
-        public void setTime(int time) {
-            this.time = time;
-        }
-
-        public static class FreeTrialInfoBean {
-            private int start;
-            private int end;
-
-            public int getStart() {
-                return start;
-            }
-
-            public void setStart(int start) {
-                this.start = start;
-            }
-
-            public int getEnd() {
-                return end;
-            }
-
-            public void setEnd(int end) {
-                this.end = end;
-            }
-        }
-    }
-}
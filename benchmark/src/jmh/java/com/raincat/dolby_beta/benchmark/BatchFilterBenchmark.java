@@ -0,0 +1,54 @@
+package com.raincat.dolby_beta.benchmark;
+
+import com.raincat.dolby_beta.dex.ClassIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 批量过滤基准
+ *     version: 1.0
+ * </pre>
+ * 启动时ClassHelper一次遍历解析所有查找的正则，与逐个正则过滤对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchFilterBenchmark {
+    private List<Pattern> patterns;
+    private ClassIndex classIndex;
+
+    @Setup
+    public void setup() throws IOException {
+        classIndex = ClassIndex.build(1, DexFixture.getClassList());
+        patterns = new ArrayList<>();
+        for (String regex : FilterBenchmark.PATTERNS)
+            patterns.add(Pattern.compile(regex));
+    }
+
+    @Benchmark
+    public List<List<String>> batch() {
+        return classIndex.filter(patterns);
+    }
+
+    @Benchmark
+    public List<List<String>> each() {
+        List<List<String>> results = new ArrayList<>(patterns.size());
+        for (Pattern pattern : patterns)
+            results.add(classIndex.filter(pattern));
+        return results;
+    }
+}
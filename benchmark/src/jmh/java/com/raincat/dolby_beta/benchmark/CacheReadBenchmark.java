@@ -0,0 +1,94 @@
+package com.raincat.dolby_beta.benchmark;
+
+import com.raincat.dolby_beta.dex.ClassIndex;
+import com.raincat.dolby_beta.dex.SignatureIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 缓存读取基准
+ *     version: 1.0
+ * </pre>
+ * 宿主未更新时启动只读缓存：二进制类名索引（内存映射并校验CRC32）、结构特征索引，
+ * 以及旧版每行一个类名的文本缓存。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CacheReadBenchmark {
+    private static final int VERSION = 1;
+
+    private File classIndexFile;
+    private File signatureIndexFile;
+    private File textFile;
+
+    @Setup
+    public void setup() throws IOException {
+        File dir = DexFixture.getApk().getParentFile();
+        classIndexFile = new File(dir, "class.idx");
+        signatureIndexFile = new File(dir, "signature.idx");
+        textFile = new File(dir, "class.txt");
+        List<String> classList = DexFixture.getClassList();
+        ClassIndex.build(VERSION, classList).writeTo(classIndexFile);
+        SignatureIndex.build(VERSION, DexFixture.getSignatureList()).writeTo(signatureIndexFile);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(textFile), StandardCharsets.UTF_8))) {
+            for (String className : classList) {
+                writer.write(className);
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : new File[]{classIndexFile, signatureIndexFile, textFile})
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+    }
+
+    @Benchmark
+    public ClassIndex binary() {
+        return ClassIndex.open(classIndexFile, VERSION);
+    }
+
+    @Benchmark
+    public SignatureIndex signature() {
+        return SignatureIndex.open(signatureIndexFile, VERSION);
+    }
+
+    /**
+     * 旧版实现：逐行读入内存列表
+     */
+    @Benchmark
+    public List<String> text() throws IOException {
+        List<String> list = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(textFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                list.add(line);
+        }
+        return list;
+    }
+}
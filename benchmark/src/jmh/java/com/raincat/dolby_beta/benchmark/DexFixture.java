@@ -0,0 +1,278 @@
+package com.raincat.dolby_beta.benchmark;
+
+import com.annimon.stream.function.Predicate;
+import com.raincat.dolby_beta.dex.ApkFingerprint;
+import com.raincat.dolby_beta.dex.ClassNameArena;
+import com.raincat.dolby_beta.dex.ClassSignature;
+import com.raincat.dolby_beta.dex.DexStreamReader;
+
+import org.jf.dexlib2.AccessFlags;
+import org.jf.dexlib2.AnnotationVisibility;
+import org.jf.dexlib2.Opcodes;
+import org.jf.dexlib2.dexbacked.DexBackedClassDef;
+import org.jf.dexlib2.dexbacked.DexBackedDexFile;
+import org.jf.dexlib2.iface.Annotation;
+import org.jf.dexlib2.iface.ClassDef;
+import org.jf.dexlib2.iface.Field;
+import org.jf.dexlib2.iface.Method;
+import org.jf.dexlib2.iface.MethodParameter;
+import org.jf.dexlib2.iface.value.ArrayEncodedValue;
+import org.jf.dexlib2.immutable.ImmutableAnnotation;
+import org.jf.dexlib2.immutable.ImmutableAnnotationElement;
+import org.jf.dexlib2.immutable.ImmutableClassDef;
+import org.jf.dexlib2.immutable.ImmutableDexFile;
+import org.jf.dexlib2.immutable.ImmutableField;
+import org.jf.dexlib2.immutable.ImmutableMethod;
+import org.jf.dexlib2.immutable.ImmutableMethodParameter;
+import org.jf.dexlib2.immutable.value.ImmutableArrayEncodedValue;
+import org.jf.dexlib2.immutable.value.ImmutableTypeEncodedValue;
+import org.jf.dexlib2.writer.io.FileDataStore;
+import org.jf.dexlib2.writer.pool.DexPool;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 基准测试用的合成apk
+ *     version: 1.0
+ * </pre>
+ * 用dexlib2生成与网易云规模相近的apk：60000个类分布在12个dex中，
+ * 约四成为混淆过的网易云类，其余为okhttp、androidx、kotlin等三方库。
+ * 随机数种子固定，同一FIXTURE_VERSION生成的文件完全相同，生成一次后复用。
+ */
+final class DexFixture {
+    static final int CLASS_COUNT = 60000;
+    static final int DEX_COUNT = 12;
+    private static final int FIXTURE_VERSION = 1;
+    private static final long SEED = 0x44424554L;
+
+    private static final String[] CLOUDMUSIC_MODULES = {"", "network.", "module.", "module.transfer.download.", "module.main.",
+            "module.account.", "module.comment2.", "module.ad.", "music.biz.sidebar.account.", "music.biz.comment.",
+            "music.biz.setting.activity.", "ui.", "activity.", "meta.", "network.cookie.store."};
+    private static final String[] LIBRARY_PREFIXES = {"androidx.appcompat.", "androidx.recyclerview.", "androidx.core.",
+            "kotlin.", "kotlinx.coroutines.", "com.google.gson.", "com.google.common.", "com.tencent.", "io.reactivex.",
+            "com.facebook.", "org.greenrobot."};
+    private static final String[] FIELD_TYPES = {"I", "J", "Z", "Ljava/lang/String;", "Ljava/util/List;", "Ljava/util/ArrayList;",
+            "Ljava/util/LinkedHashMap;", "Ljava/util/concurrent/ConcurrentHashMap;", "Landroid/content/Intent;",
+            "Landroid/content/SharedPreferences;", "[Ljava/lang/String;", "Ljava/lang/Object;"};
+    private static final String[] RETURN_TYPES = {"V", "V", "I", "Z", "Ljava/lang/String;", "Ljava/util/List;", "Ljava/util/ArrayList;",
+            "Ljava/lang/Object;", "Ljava/lang/Throwable;", "[Ljava/lang/String;", "J"};
+    private static final String THROWS = "Ldalvik/annotation/Throws;";
+    //与ClassHelper全量扫描相同的过滤条件
+    private static final Predicate<String> CLASS_FILTER = classType -> !classType.startsWith("Landroid") && !classType.startsWith("Ljava")
+            && !classType.startsWith("Ljavax") && !classType.startsWith("Lkotlin") && !classType.startsWith("Landroidx");
+    private static final Predicate<String> SIGNATURE_FILTER = classType -> classType.startsWith("Lcom/netease/cloudmusic/")
+            || classType.startsWith("Lokhttp3/");
+
+    private static File apkFile;
+    private static List<String> classList;
+    private static List<ClassSignature> signatureList;
+
+    private DexFixture() {
+    }
+
+    /**
+     * 取得合成apk，不存在时生成
+     */
+    static synchronized File getApk() throws IOException {
+        if (apkFile != null)
+            return apkFile;
+        File dir = new File(System.getProperty("benchmark.fixtureDir", System.getProperty("java.io.tmpdir") + "/dolby-benchmark"));
+        File file = new File(dir, "fixture-" + FIXTURE_VERSION + ".apk");
+        if (!file.isFile()) {
+            if (!dir.isDirectory() && !dir.mkdirs())
+                throw new IOException("mkdirs " + dir + " failed");
+            writeApk(file);
+        }
+        apkFile = file;
+        return file;
+    }
+
+    /**
+     * 扫描得到的类名，同一进程内只扫描一次
+     */
+    static synchronized List<String> getClassList() throws IOException {
+        if (classList == null)
+            load();
+        return classList;
+    }
+
+    static synchronized List<ClassSignature> getSignatureList() throws IOException {
+        if (signatureList == null)
+            load();
+        return signatureList;
+    }
+
+    private static void load() throws IOException {
+        ClassNameArena arena = new ClassNameArena();
+        List<ClassSignature> signatures = new ArrayList<>();
+        scan(getApk(), arena, signatures);
+        List<String> classes = new ArrayList<>(arena.size());
+        for (int i = 0; i < arena.size(); i++)
+            classes.add(arena.get(i));
+        classList = Collections.unmodifiableList(classes);
+        signatureList = Collections.unmodifiableList(signatures);
+    }
+
+    /**
+     * 与ClassHelper全量扫描相同的过滤条件读取所有dex
+     */
+    static void scan(File apk, ClassNameArena classList, List<ClassSignature> signatureList) throws IOException {
+        for (String dexName : ApkFingerprint.read(apk).getDexNameList())
+            DexStreamReader.scan(apk, dexName, CLASS_FILTER, SIGNATURE_FILTER, classList, signatureList);
+    }
+
+    /**
+     * 同样的过滤条件，用dexlib2把每个dex整个解压到堆里再读取，作为流式读取的对照
+     */
+    static void scanDexlib2(File apk, ClassNameArena classList, List<ClassSignature> signatureList) throws IOException {
+        try (ZipFile zipFile = new ZipFile(apk)) {
+            for (String dexName : ApkFingerprint.read(apk).getDexNameList()) {
+                DexBackedDexFile dexFile;
+                try (InputStream inputStream = new BufferedInputStream(zipFile.getInputStream(zipFile.getEntry(dexName)))) {
+                    dexFile = DexBackedDexFile.fromInputStream(Opcodes.getDefault(), inputStream);
+                }
+                for (DexBackedClassDef classDef : dexFile.getClasses()) {
+                    String type = classDef.getType();
+                    if (!CLASS_FILTER.test(type))
+                        continue;
+                    classList.addDescriptor(type);
+                    if (SIGNATURE_FILTER.test(type))
+                        signatureList.add(getSignature(classDef));
+                }
+            }
+        }
+    }
+
+    private static ClassSignature getSignature(ClassDef classDef) {
+        List<String> interfaces = new ArrayList<>();
+        for (String type : classDef.getInterfaces())
+            interfaces.add(ClassSignature.typeName(type));
+        List<String> fieldTypes = new ArrayList<>();
+        for (Field field : classDef.getFields())
+            fieldTypes.add(ClassSignature.typeName(field.getType()));
+        List<ClassSignature.MethodSignature> methods = new ArrayList<>();
+        for (Method method : classDef.getMethods()) {
+            List<String> parameterTypes = new ArrayList<>();
+            for (CharSequence type : method.getParameterTypes())
+                parameterTypes.add(ClassSignature.typeName(type.toString()));
+            int exceptionCount = 0;
+            for (Annotation annotation : method.getAnnotations())
+                if (THROWS.equals(annotation.getType()))
+                    exceptionCount = ((ArrayEncodedValue) annotation.getElements().iterator().next().getValue()).getValue().size();
+            methods.add(new ClassSignature.MethodSignature(method.getAccessFlags(), ClassSignature.typeName(method.getReturnType()),
+                    parameterTypes, exceptionCount));
+        }
+        String superclass = classDef.getSuperclass();
+        return new ClassSignature(ClassSignature.typeName(classDef.getType()), classDef.getAccessFlags(),
+                superclass == null ? null : ClassSignature.typeName(superclass), interfaces, fieldTypes, methods);
+    }
+
+    private static void writeApk(File file) throws IOException {
+        Random random = new Random(SEED);
+        List<String> typeList = new ArrayList<>(generateTypes(random));
+        Collections.shuffle(typeList, random);
+        int perDex = (typeList.size() + DEX_COUNT - 1) / DEX_COUNT;
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(tmpFile))) {
+            for (int i = 0; i < DEX_COUNT; i++) {
+                List<ClassDef> classDefs = new ArrayList<>();
+                for (String type : typeList.subList(i * perDex, Math.min(typeList.size(), (i + 1) * perDex)))
+                    classDefs.add(generateClass(type, random));
+                File dexFile = File.createTempFile("fixture", ".dex", file.getParentFile());
+                try {
+                    DexPool.writeTo(new FileDataStore(dexFile), new ImmutableDexFile(Opcodes.getDefault(), classDefs));
+                    zipOutputStream.putNextEntry(new ZipEntry(i == 0 ? "classes.dex" : "classes" + (i + 1) + ".dex"));
+                    try (InputStream inputStream = Files.newInputStream(dexFile.toPath())) {
+                        byte[] buffer = new byte[8192];
+                        int length;
+                        while ((length = inputStream.read(buffer)) > 0)
+                            zipOutputStream.write(buffer, 0, length);
+                    }
+                    zipOutputStream.closeEntry();
+                } finally {
+                    //noinspection ResultOfMethodCallIgnored
+                    dexFile.delete();
+                }
+            }
+        }
+        if (!tmpFile.renameTo(file))
+            throw new IOException("rename " + tmpFile + " failed");
+    }
+
+    private static Set<String> generateTypes(Random random) {
+        Set<String> types = new LinkedHashSet<>();
+        while (types.size() < CLASS_COUNT * 2 / 5)
+            types.add(descriptor("com.netease.cloudmusic." + CLOUDMUSIC_MODULES[random.nextInt(CLOUDMUSIC_MODULES.length)]
+                    + obfuscatedPath(random, 1 + random.nextInt(3))));
+        while (types.size() < CLASS_COUNT / 2)
+            types.add(descriptor("okhttp3." + (random.nextBoolean() ? "internal." : "") + obfuscatedPath(random, 1 + random.nextInt(2))));
+        while (types.size() < CLASS_COUNT)
+            types.add(descriptor(LIBRARY_PREFIXES[random.nextInt(LIBRARY_PREFIXES.length)] + obfuscatedPath(random, 1 + random.nextInt(3))));
+        return types;
+    }
+
+    /**
+     * 混淆后的包名与类名，如a.b.c、a0.b、ab
+     */
+    private static String obfuscatedPath(Random random, int depth) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            if (i != 0)
+                builder.append('.');
+            builder.append((char) ('a' + random.nextInt(26)));
+            if (random.nextInt(4) == 0)
+                builder.append(random.nextBoolean() ? (char) ('a' + random.nextInt(26)) : (char) ('0' + random.nextInt(10)));
+        }
+        return builder.toString();
+    }
+
+    private static String descriptor(String className) {
+        return "L" + className.replace('.', '/') + ";";
+    }
+
+    private static ClassDef generateClass(String type, Random random) {
+        int accessFlags = AccessFlags.PUBLIC.getValue();
+        if (random.nextInt(3) == 0)
+            accessFlags |= AccessFlags.FINAL.getValue();
+        List<Field> fields = new ArrayList<>();
+        int fieldCount = random.nextInt(7);
+        for (int i = 0; i < fieldCount; i++)
+            fields.add(new ImmutableField(type, "f" + i, FIELD_TYPES[random.nextInt(FIELD_TYPES.length)],
+                    AccessFlags.PRIVATE.getValue(), null, null));
+        List<Method> methods = new ArrayList<>();
+        int methodCount = random.nextInt(9);
+        for (int i = 0; i < methodCount; i++) {
+            List<MethodParameter> parameters = new ArrayList<>();
+            int parameterCount = random.nextInt(5);
+            for (int j = 0; j < parameterCount; j++)
+                parameters.add(new ImmutableMethodParameter(FIELD_TYPES[random.nextInt(FIELD_TYPES.length)], null, null));
+            Set<Annotation> annotations = null;
+            if (random.nextInt(10) == 0)
+                annotations = Collections.singleton(new ImmutableAnnotation(AnnotationVisibility.SYSTEM, THROWS,
+                        Collections.singleton(new ImmutableAnnotationElement("value", new ImmutableArrayEncodedValue(
+                                Collections.singletonList(new ImmutableTypeEncodedValue("Ljava/io/IOException;")))))));
+            //不生成代码，native方法不需要方法体
+            methods.add(new ImmutableMethod(type, "m" + i, parameters, RETURN_TYPES[random.nextInt(RETURN_TYPES.length)],
+                    AccessFlags.PUBLIC.getValue() | AccessFlags.NATIVE.getValue()
+                            | (random.nextBoolean() ? AccessFlags.FINAL.getValue() : 0), annotations, null));
+        }
+        List<String> interfaces = random.nextInt(4) == 0 ? Collections.singletonList("Ljava/io/Serializable;") : null;
+        return new ImmutableClassDef(type, accessFlags, "Ljava/lang/Object;", interfaces, null, null, fields, methods);
+    }
+}
@@ -0,0 +1,53 @@
+package com.raincat.dolby_beta.benchmark;
+
+import com.raincat.dolby_beta.dex.ClassIndex;
+import com.raincat.dolby_beta.dex.ClassNameArena;
+import com.raincat.dolby_beta.dex.ClassSignature;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : dex扫描基准
+ *     version: 1.0
+ * </pre>
+ * 没有缓存时的完整扫描：逐个流式读取12个dex并建立类名索引。
+ * dexlib2()用dexlib2把整个dex解压到堆里再读取同样的内容，作为对照。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DexScanBenchmark {
+    private File apk;
+
+    @Setup
+    public void setup() throws IOException {
+        apk = DexFixture.getApk();
+    }
+
+    @Benchmark
+    public ClassIndex scan() throws IOException {
+        ClassNameArena classList = new ClassNameArena();
+        DexFixture.scan(apk, classList, new ArrayList<ClassSignature>());
+        return ClassIndex.build(1, classList);
+    }
+
+    @Benchmark
+    public ClassIndex dexlib2() throws IOException {
+        ClassNameArena classList = new ClassNameArena();
+        DexFixture.scanDexlib2(apk, classList, new ArrayList<ClassSignature>());
+        return ClassIndex.build(1, classList);
+    }
+}
@@ -0,0 +1,83 @@
+package com.raincat.dolby_beta.benchmark;
+
+import com.annimon.stream.Stream;
+import com.raincat.dolby_beta.dex.ClassIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 类名过滤基准
+ *     version: 1.0
+ * </pre>
+ * 对应ClassHelper.getFilteredClasses：索引按字面前缀定位区间后过滤，
+ * 与旧版对整个类名列表逐个正则匹配对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterBenchmark {
+    //ClassHelper中各类getPatterns()返回的查找正则，相同的只列一次
+    static final String[] PATTERNS = {
+            "^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.network\\.cookie\\.store\\.[a-zA-Z0-9]{1,25}$",
+            "^com\\.netease\\.cloudmusic\\.module\\.transfer\\.download\\.[a-z0-9]{1,2}$",
+            "^com\\.netease\\.cloudmusic\\.module\\.[a-z0-9]{1,2}\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.[a-z0-9]{1,2}\\.[a-z]\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.module\\.main\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.module\\.account\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.music\\.biz\\.sidebar\\.account\\.[a-z0-9]{1,2}$",
+            "^com\\.netease\\.cloudmusic\\.module\\.comment2\\.[a-z]\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.music\\.biz\\.comment\\.[a-z]\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.music\\.biz\\.comment\\.viewmodel\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.module\\.ad\\.[a-z]$",
+            "^okhttp3\\.[a-zA-Z]{1,8}$",
+            "^okhttp3\\.[a-zA-Z]{1,7}$",
+            "^com\\.netease\\.cloudmusic\\.[a-z]\\.[a-z]\\.[a-z]",
+            "^com\\.netease\\.cloudmusic\\.network\\.[a-z]"
+    };
+
+    @Param({"^com\\.netease\\.cloudmusic\\.network\\.[a-z]\\.[a-z]\\.[a-z]$",
+            "^com\\.netease\\.cloudmusic\\.[a-z0-9]{1,2}\\.[a-z]\\.[a-z]$",
+            "^okhttp3\\.[a-zA-Z]{1,8}$",
+            "^com\\.netease\\.cloudmusic\\.network\\.[a-z]"})
+    public String regex;
+
+    private Pattern pattern;
+    private List<String> classList;
+    private ClassIndex classIndex;
+
+    @Setup
+    public void setup() throws IOException {
+        classList = DexFixture.getClassList();
+        classIndex = ClassIndex.build(1, classList);
+        pattern = Pattern.compile(regex);
+    }
+
+    @Benchmark
+    public List<String> index() {
+        return classIndex.filter(pattern);
+    }
+
+    /**
+     * 旧版实现：对内存中的类名列表逐个匹配
+     */
+    @Benchmark
+    public List<String> list() {
+        return Stream.of(classList).filter(s -> pattern.matcher(s).find()).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.raincat.dolby_beta.benchmark;
+
+import com.annimon.stream.Stream;
+import com.annimon.stream.function.Predicate;
+import com.raincat.dolby_beta.dex.ClassIndex;
+import com.raincat.dolby_beta.dex.ClassSignature;
+import com.raincat.dolby_beta.dex.SignatureIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * <pre>
+ *     time   : 2026/10/18
+ *     desc   : 结构特征过滤基准
+ *     version: 1.0
+ * </pre>
+ * 与ClassHelper中BottomTabView、SidebarItem、CommentDataClass的特征条件相同。
+ * candidates为正则候选再按特征预筛，all为对所有记录了特征的类逐个判断。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignatureFilterBenchmark {
+    private static final List<Predicate<ClassSignature>> FEATURES = new ArrayList<>();
+
+    static {
+        FEATURES.add(s -> s.isPublic() && s.isFinal() && !s.isInterface() && !s.isAbstract()
+                && s.hasFieldType("java.lang.String")
+                && s.hasFieldType("java.util.ArrayList")
+                && s.hasFieldType("boolean")
+                && s.hasMethod(m -> "java.util.ArrayList".equals(m.getReturnType()) && m.isFinal() && m.getParameterCount() == 0));
+        FEATURES.add(s -> s.isPublic() && s.isFinal() && !s.isInterface() && !s.isAbstract()
+                && s.hasFieldType("int")
+                && s.hasFieldType("java.util.List")
+                && s.hasMethod(m -> "java.util.List".equals(m.getReturnType()))
+                && s.hasMethod(m -> "java.lang.Throwable".equals(m.getReturnType())));
+        FEATURES.add(s -> s.isPublic() && !s.isInterface() && !s.isAbstract()
+                && s.hasFieldType("int")
+                && s.hasFieldType("java.util.List")
+                && s.hasFieldType("android.content.Intent")
+                && s.hasFieldType("java.lang.String")
+                && s.hasFieldType("long")
+                && s.hasFieldType("boolean"));
+    }
+
+    private SignatureIndex signatureIndex;
+    private List<List<String>> candidates;
+
+    @Setup
+    public void setup() throws IOException {
+        signatureIndex = SignatureIndex.build(1, DexFixture.getSignatureList());
+        ClassIndex classIndex = ClassIndex.build(1, DexFixture.getClassList());
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : FilterBenchmark.PATTERNS)
+            patterns.add(Pattern.compile(regex));
+        candidates = classIndex.filter(patterns);
+    }
+
+    @Benchmark
+    public int candidates() {
+        int count = 0;
+        for (Predicate<ClassSignature> feature : FEATURES)
+            for (List<String> list : candidates)
+                count += Stream.of(list).filter(className -> {
+                    ClassSignature signature = signatureIndex.get(className);
+                    return signature == null || feature.test(signature);
+                }).toList().size();
+        return count;
+    }
+
+    @Benchmark
+    public int all() {
+        int count = 0;
+        for (Predicate<ClassSignature> feature : FEATURES)
+            count += Stream.of(signatureIndex.getSignatures()).filter(feature).toList().size();
+        return count;
+    }
+}